@@ -2,6 +2,8 @@
 
 import os
 import math
+import json
+from collections import OrderedDict
 
 col_time = 0
 col_read_ops = 1
@@ -9,6 +11,21 @@ col_read_err = 2
 col_write_ops = 3
 col_write_err = 4
 
+knee_p99_factor = 10.0  # latency falls apart when p99 grows that many times over baseline
+knee_rate_ratio = 0.9   # ... or when achieved rate drops below that share of target rate
+
+# dimensions compared against baseline runs of same shape: (name, baseline value, table title, output file)
+compared_dimensions = [
+    ('pool', 'hikari', 'Pool impl', 'data/report-pools.html'),
+    ('stmt', 'none', 'Statements', 'data/report-statements.html'),
+    ('keys', 'uniform', 'Keys', 'data/report-keys.html'),
+    ('async', 0, 'In flight per client', 'data/report-async.html'),
+    ('conn', 'pooled', 'Connections', 'data/report-redis-conn.html'),
+    ('pipe', 1, 'Pipeline depth', 'data/report-redis-pipe.html'),
+    ('balance', 'none', 'Read balancing', 'data/report-balance.html'),
+    ('cache', 0, 'Cache size', 'data/report-cache.html'),
+]
+
 
 class ColumnData:
     def __init__(self, chart, title, data):
@@ -52,34 +69,36 @@ class ColumnData:
 
 
 class ChartData:
-    def __init__(self, file):
+    def __init__(self, file, input_matrix):
         assert file.endswith('.csv')
-
-        # read meta-data:
+        self.file_name = file
+
+        # read meta-data (optional dimensions first):
+        self.rate = 0
+        self.rate_to = 0
+        self.arrival = 'constant'
+        self.batch = 1
+        self.engine = 'platform'
+        self.r_scan = 0
+        self.scan = 'stream'
+        self.fetch = 0
+        self.read_size = 1000
+        for (dimension, baseline, _, _) in compared_dimensions:
+            setattr(self, dimension, baseline)
         for field in file[:-len('.csv')].split(','):
             [key, value] = field.split('=')
-            setattr(self, key, int(value))
-
-        #  read raw data:
-        first_line = True
-        input_matrix = None
-        for line in open(file, 'r'):
-            line = line.strip()
-            if line <> '':
-                items = line.split(',')
-                if first_line:
-                    input_matrix = [[title.replace("'", '')] for title in items]
-                    first_line = False
-                else:
-                    values = [float(value) for value in items]
-                    for i in range(len(values)):
-                        input_matrix[i].append(values[i])
+            try:
+                setattr(self, key, int(value))
+            except ValueError:
+                setattr(self, key, value)
+
         self.columns = [ColumnData(self, input_column[0], input_column[1:]) for input_column in input_matrix]
+        self.columns_by_name = dict([(c.title, c) for c in self.columns])
 
         self.time_line = self.columns[0]
 
         # noinspection PyUnresolvedReferences
-        self.read_th = self.r_lite + self.r_heavy
+        self.read_th = self.r_lite + self.r_heavy + self.r_scan
         # noinspection PyUnresolvedReferences
         read_title = 'r%d_R%d' % (self.r_lite, self.r_heavy)
         self.read_ops = self.columns[1]
@@ -98,6 +117,24 @@ class ChartData:
 
         self.max_th = max(self.read_th, self.write_th)
 
+    def is_open_loop(self):
+        return self.rate > 0
+
+    def find_knee(self):
+        """
+        Find first second of rate driven test where latency falls apart.
+        :return: (target rate, achieved rate, p99 us) at knee or None if latency held till the end.
+        """
+        prefix = 'Read' if self.read_th > 0 or self.read_ops.sum > 0 else 'Write'  # scenario mix runs both
+        ops = self.columns_by_name[prefix + 'Ops'].data
+        p99 = self.columns_by_name[prefix + 'P99'].data
+        target = self.columns_by_name['TargetRate'].data
+        baseline = sorted(p99[:5])[len(p99[:5]) / 2]
+        for i in range(len(p99)):
+            if p99[i] > knee_p99_factor * max(baseline, 1.0) or ops[i] < knee_rate_ratio * target[i]:
+                return target[i], ops[i], p99[i]
+        return None
+
 
 class ChartView:
     def __init__(self, database, host, title, div_id, data):
@@ -142,12 +179,65 @@ class ReportView:
 div_id_sequence = 0
 
 
+def read_csv_matrix(file):
+    first_line = True
+    input_matrix = None
+    for line in open(file, 'r'):
+        line = line.strip()
+        if line <> '':
+            items = line.split(',')
+            if first_line:
+                input_matrix = [[title.replace("'", '')] for title in items]
+                first_line = False
+            else:
+                values = [float(value) for value in items]
+                for i in range(len(values)):
+                    input_matrix[i].append(values[i])
+    return input_matrix
+
+
+def read_json_runs(file):
+    """
+    Read single export of result store (see export suite).
+    :return: {(database, host): {spec: input matrix}}
+    """
+    runs = {}
+    for run in json.load(open(file, 'r'), object_pairs_hook=OrderedDict):
+        input_matrix = [[title] + [float(value) for value in values] for (title, values) in run['columns'].items()]
+        runs.setdefault((run['database'], run['host']), {})[run['spec']] = input_matrix
+    return runs
+
+
+def read_csv_runs(data_dir):
+    """
+    Read file per test layout of csv sink: data/<db>/<host>/<spec>.csv.
+    :return: {(database, host): {spec: input matrix}}
+    """
+    runs = {}
+    for database in os.listdir(data_dir):
+        database_dir = os.path.join(data_dir, database)
+        if not database.startswith('-') and os.path.isdir(database_dir):
+            for profile in os.listdir(database_dir):
+                profile_dir = os.path.join(database_dir, profile)
+                if os.path.isdir(profile_dir):
+                    for file_name in os.listdir(profile_dir):
+                        if file_name.endswith('.csv'):
+                            spec = file_name[:-len('.csv')]
+                            runs.setdefault((database, profile), {})[spec] = read_csv_matrix(os.path.join(profile_dir, file_name))
+    return runs
+
+
 class ReportGenerator:
-    def __init__(self, database, host):
+    def __init__(self, database, host, charts):
         self.database = database
         self.host = host
+        self.charts = charts
         self.report_write = ReportView()
         self.report_read = ReportView()
+        self.rate_charts = []
+        self.batch_charts = []
+        self.scan_charts = []
+        self.dimension_charts = dict([(d[0], []) for d in compared_dimensions])
 
     def color(self, size, gradient=False):
         gradient26= [
@@ -256,10 +346,12 @@ class ReportGenerator:
             var data = google.visualization.arrayToDataTable([
         """ % div_id
         result += '[%s],\n' % ', '.join(['"' + c.title + '"' for c in columns])
+        # adaptive runs stop early, so columns may be shorter than time line (missing points are nulls):
         for i in range(len(columns[0].data)):
-            result += '[%s],\n' % (', '.join([str(c.data[i]) for c in columns]))
+            result += '[%s],\n' % (', '.join([str(c.data[i]) if i < len(c.data) else 'null' for c in columns]))
 
         thread_pool_sizes = [1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 20, 24, 28, 32, 48, 64, 96, 128, 192, 256]
+        size_index = lambda th: thread_pool_sizes.index(th) if th in thread_pool_sizes else len(thread_pool_sizes) - 1
         result += """
         ]);
 
@@ -273,7 +365,7 @@ class ReportGenerator:
             var chart = new google.visualization.LineChart(document.getElementById('%s'));
             chart.draw(data, options);
         }
-        """ % (title, "','".join([self.color(thread_pool_sizes.index(c.chart.max_th), gradient=True) if c.chart is not None else self.color(columns.index(c)-1) for c in columns[1:]]),div_id)
+        """ % (title, "','".join([self.color(size_index(c.chart.max_th), gradient=True) if c.chart is not None else self.color(columns.index(c)-1) for c in columns[1:]]),div_id)
 
         return ChartView(self.database, self.host, title, div_id, result)
 
@@ -281,7 +373,7 @@ class ReportGenerator:
         if len([c for c in columns if c.chart is not None])>0:
             report.add_chart_view(self.draw_chart([columns[0]]+[c for c in columns[1:] if c.chart.max_th in range(1,9+1)], title+" 01..9"))
             report.add_chart_view(self.draw_chart([columns[0]]+[c for c in columns[1:] if c.chart.max_th in range(7,20+1)], title+" 07..20"))
-            report.add_chart_view(self.draw_chart([columns[0]]+[c for c in columns[1:] if c.chart.max_th in range(15,256+1)], title+" 15..256"))
+            report.add_chart_view(self.draw_chart([columns[0]]+[c for c in columns[1:] if c.chart.max_th >= 15], title+" 15+"))
         else:
             report.add_chart_view(self.draw_chart(columns, title))
 
@@ -322,16 +414,32 @@ class ReportGenerator:
 
     def prepare_charts(self):
         chart_list = []
-        for file_name in os.listdir('.'):
-            if file_name.endswith('.csv'):
-                chart_list.append(ChartData(file_name))
+        for chart in self.charts:
+            if chart.is_open_loop():
+                self.rate_charts.append(chart)
+            elif chart.batch > 1:
+                self.batch_charts.append(chart)
+            elif chart.r_scan > 0 or chart.read_size != 1000:
+                self.scan_charts.append(chart)
+            else:
+                compared = [d[0] for d in compared_dimensions if getattr(chart, d[0]) != d[1]]
+                if len(compared) > 0:
+                    self.dimension_charts[compared[0]].append(chart)
+                else:
+                    chart_list.append(chart)
+        # compared dimensions also include baseline runs of same shape:
+        for (dimension, charts) in self.dimension_charts.items():
+            shapes = set([dimension_shape(c) for c in charts])
+            charts.extend([c for c in chart_list if dimension_shape(c) in shapes])
+        if len(chart_list) == 0:
+            return
 
         chart_ins_list = [c for c in chart_list if c.w_ins > 0 and c.w_ins==c.write_th and c.read_th == 0]
         chart_up_tiny_list = [c for c in chart_list if c.w_up_tiny > 0 and c.w_up_tiny==c.write_th and c.read_th == 0]
         chart_up_wide_list = [c for c in chart_list if c.w_up_wide > 0 and c.w_up_wide==c.write_th and c.read_th == 0]
         chart_r_lite_list = [c for c in chart_list if c.r_lite > 0 and c.r_lite==c.read_th and c.write_th == 0]
         chart_r_heavy_list = [c for c in chart_list if c.r_heavy > 0 and c.r_heavy==c.read_th and c.write_th == 0]
-        time_line = chart_list[0].time_line
+        time_line = max([c.time_line for c in chart_list], key=lambda t: len(t.data))
 
         if len(chart_ins_list) > 0:
             self.render_group(self.report_write, time_line, chart_ins_list, 'Write Ins', lambda c: c.write_ops, lambda c: c.chart.write_th)
@@ -350,6 +458,10 @@ class ReportGenerator:
         return self.report_write
 
 
+def dimension_shape(chart):
+    return chart.sp, chart.r_lite, chart.w_up_tiny, chart.engine
+
+
 def meta_column(columns, title, metric):
     return ColumnData(None, title, [metric(c) for c in columns])
 
@@ -394,28 +506,134 @@ def save_charts(report_view, output_html):
         </body>
     </html>""")
 
+def save_table(headers, rows, output_html):
+    with open(output_html, 'w') as out:
+        out.write("""<html>
+        <body>
+            <table border='1'>
+        """)
+        out.write("<tr>%s</tr>\n" % ''.join(['<th>%s</th>' % h for h in headers]))
+        for row in rows:
+            out.write("<tr>%s</tr>\n" % ''.join(['<td>%s</td>' % v for v in row]))
+        out.write("""
+            </table>
+        </body>
+    </html>""")
+
+def save_knees(knees, output_html):
+    rows = []
+    for (database, host, chart) in sorted(knees, key=lambda k: (k[0], k[1], k[2].sp, k[2].file_name)):
+        knee = chart.find_knee()
+        if knee is None:
+            rows.append([database, host, chart.sp, chart.file_name, 'not reached (max %d ops)' % max(chart.rate, chart.rate_to), '', ''])
+        else:
+            rows.append([database, host, chart.sp, chart.file_name] + ['%d' % v for v in knee])
+    save_table(['Database', 'Host', 'Pool', 'Test', 'Knee target ops', 'Knee achieved ops', 'Knee p99 us'], rows, output_html)
+
+def save_batches(batches, output_html):
+    rows = []
+    for (database, host, chart) in sorted(batches, key=lambda b: (b[0], b[1], b[2].w_ins == 0, b[2].sp, b[2].batch)):
+        rows.append([database, host, chart.sp, 'insert' if chart.w_ins > 0 else 'update tiny', chart.batch,
+                     '%.0f' % chart.columns_by_name['WriteOps'].avg,
+                     '%.0f' % chart.columns_by_name['WriteRows'].avg,
+                     '%.0f' % chart.columns_by_name['WriteP99'].avg])
+    save_table(['Database', 'Host', 'Pool', 'Operation', 'Batch', 'Statements/sec', 'Rows/sec', 'Avg p99 us'], rows, output_html)
+
+def save_scans(scans, output_html):
+    rows = []
+    for (database, host, chart) in sorted(scans, key=lambda s: (s[0], s[1], s[2].sp, s[2].read_size, s[2].r_scan > 0, s[2].scan, s[2].fetch)):
+        scanned = chart.r_scan > 0
+        rows.append([database, host, chart.sp, chart.scan if scanned else 'avg(val)', chart.read_size, chart.fetch if scanned else '-',
+                     '%.0f' % chart.columns_by_name['ReadOps'].avg,
+                     '%.0f' % chart.columns_by_name['ReadRows'].avg if scanned else '-',
+                     '%.1f' % (chart.columns_by_name['ReadBytes'].avg / 1e6) if scanned else '-',
+                     '%.0f' % chart.columns_by_name['ReadP99'].avg,
+                     format_avg(chart, 'ClientCpuMs'),
+                     format_alloc_mb(chart),
+                     format_avg(chart, 'HeapUsedMb')])
+    save_table(['Database', 'Host', 'Pool', 'Query', 'Range ids', 'Fetch', 'Ops/sec', 'Rows/sec', 'MB/sec', 'Avg p99 us',
+                'Avg client cpu ms/sec', 'Avg client alloc MB/sec', 'Avg heap used MB'], rows, output_html)
+
+def save_dimension(charts, dimension, baseline, title, output_html):
+    rows = []
+    for (database, host, chart) in sorted(charts, key=lambda c: (c[0], c[1], c[2].r_lite == 0, c[2].sp,
+                                                               getattr(c[2], dimension) != baseline, getattr(c[2], dimension))):
+        prefix = 'Read' if chart.r_lite > 0 else 'Write'
+        rows.append([database, host, chart.sp, 'read by id' if chart.r_lite > 0 else 'update tiny', getattr(chart, dimension),
+                     '%.0f' % chart.columns_by_name[prefix + 'Ops'].avg,
+                     '%.0f' % chart.columns_by_name[prefix + 'Rows'].avg,
+                     '%.0f' % chart.columns_by_name[prefix + 'P50'].avg,
+                     '%.0f' % chart.columns_by_name[prefix + 'P99'].avg,
+                     format_avg(chart, 'PoolWaitP99'),
+                     format_avg(chart, 'QueryP99')] +
+                    [format(chart) for (_, format) in dimension_columns.get(dimension, [])])
+    save_table(['Database', 'Host', 'Pool', 'Operation', title, 'Ops/sec', 'Rows/sec', 'Avg p50 us', 'Avg p99 us',
+                'Avg pool wait p99 us', 'Avg query p99 us'] + [name for (name, _) in dimension_columns.get(dimension, [])],
+               rows, output_html)
+
+
+def format_hit_ratio(chart):
+    if 'CacheHits' not in chart.columns_by_name or chart.cache == 0:
+        return '-'
+    hits = chart.columns_by_name['CacheHits'].sum
+    lookups = hits + chart.columns_by_name['CacheMisses'].sum
+    return '%.1f' % (100.0 * hits / lookups) if lookups > 0 else '-'
+
+
+# extra columns of compared dimension tables: (title, chart formatter)
+dimension_columns = {
+    'cache': [('Hit ratio %', format_hit_ratio),
+              ('Evictions/sec', lambda c: format_avg(c, 'CacheEvictions') if c.cache > 0 else '-'),
+              ('Avg cached rows', lambda c: format_avg(c, 'CacheSize') if c.cache > 0 else '-')],
+}
+
+
+def format_avg(chart, column):
+    if column in chart.columns_by_name:
+        return '%.0f' % chart.columns_by_name[column].avg
+    else:
+        return '-'  # recorded before column was introduced
+
+def format_alloc_mb(chart):
+    if 'ClientAllocKb' in chart.columns_by_name:
+        return '%.1f' % (chart.columns_by_name['ClientAllocKb'].avg / 1024.0)
+    else:
+        return format_avg(chart, 'ClientAllocMb')  # recorded in whole MB before
+
 def prepare_charts():
     os.chdir('..')
     report_write = ReportView()
     report_read = ReportView()
-    home_dir = os.path.abspath('.')
+    knees = []
+    batches = []
+    scans = []
+    dimensions = dict([(d[0], []) for d in compared_dimensions])
     data_dir = './data'
-    for database in os.listdir(data_dir):
-        database_dir = os.path.join(data_dir, database)
-        if not database.startswith('-') and os.path.isdir(database_dir):
-            for profile in os.listdir(database_dir):
-                profile_dir = os.path.join(database_dir, profile)
-                if os.path.isdir(profile_dir):
-                    os.chdir(profile_dir)
-                    report_generator = ReportGenerator(database, profile)
-                    report_generator.generate_report_view()
-
-                    report_write.add_report_view(report_generator.report_write)
-                    report_read.add_report_view(report_generator.report_read)
-
-                    os.chdir(home_dir)
-    return report_write, report_read
-
-(report_write, report_read) = prepare_charts()
+    # single export of result store wins over csv files of same test:
+    runs = read_csv_runs(data_dir)
+    json_file = os.path.join(data_dir, 'results.json')
+    if os.path.exists(json_file):
+        for (target, specs) in read_json_runs(json_file).items():
+            runs.setdefault(target, {}).update(specs)
+    for ((database, profile), specs) in sorted(runs.items()):
+        charts = [ChartData(spec + '.csv', input_matrix) for (spec, input_matrix) in specs.items()]
+        report_generator = ReportGenerator(database, profile, charts)
+        report_generator.generate_report_view()
+
+        report_write.add_report_view(report_generator.report_write)
+        report_read.add_report_view(report_generator.report_read)
+        knees.extend([(database, profile, c) for c in report_generator.rate_charts])
+        batches.extend([(database, profile, c) for c in report_generator.batch_charts])
+        scans.extend([(database, profile, c) for c in report_generator.scan_charts])
+        for (dimension, charts) in report_generator.dimension_charts.items():
+            dimensions[dimension].extend([(database, profile, c) for c in charts])
+    return report_write, report_read, knees, batches, scans, dimensions
+
+(report_write, report_read, knees, batches, scans, dimensions) = prepare_charts()
 save_charts(report_write,'data/report-write.html')
-save_charts(report_read,'data/report-read.html')
\ No newline at end of file
+save_charts(report_read,'data/report-read.html')
+save_knees(knees, 'data/report-rate-knee.html')
+save_batches(batches, 'data/report-batch.html')
+save_scans(scans, 'data/report-scan.html')
+for (dimension, baseline, title, output_html) in compared_dimensions:
+    save_dimension(dimensions[dimension], dimension, baseline, title, output_html)
@@ -1,46 +1,199 @@
 package org.hobotometr;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.hobotometr.db.DatabaseType;
+import org.hobotometr.test.DataSeeder;
 import org.hobotometr.test.EnvSpec;
+import org.hobotometr.test.LiveMetrics;
 import org.hobotometr.test.TestSuiteRunner;
+import org.hobotometr.test.WarmPools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * -Xms1024m -Xmx1024m -verbose:gc -XX:+UseG1GC -Dhost=linux.env
+ * -Dsuite=select-lite -Dsizes=16 -Dclients=10000 -Dengine=virtual (many clients contend for small pool)
+ * -Dsuite=scenario -Dscenario=prod-mix.json (operation mix by weight, see Scenario)
+ * -Dsuite=startup -Dstartup.pools=200 -Dsizes=10 (200 instances open their pools at once)
+ * -Dsuite=replicas -Dhost=db1 -Dreplicas=db2,db3:5433 (reads balanced over replicas, writes to primary)
+ * -Dsuite=cache -Dkeys=zipfian_0.99 -Dcache.sizes=1000,100000 (client side cache against uncached baseline)
+ * -Dsuite=scan -Dscan.size=100000 -Dscan.fetch.sizes=100,10000 (range scans: streaming, keyset pages, top N)
+ * -Dpostgres -Dmysql -Dhost.postgres=pg.env -Dhost.mysql=my.env -Dparallel=true (series of both databases at once)
  * @author dmitry.mamonov
  *         Created: 2014-08-13 11:24 PM
  */
 public class Main {
-    private static final ImmutableList<Integer> sizes = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 20, 24, 28, 32, 48, 64, 96, 128, 192, 256);
-    public static void main(final String[] args) {
+    private static final ImmutableList<Integer> defaultSizes = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 20, 24, 28, 32, 48, 64, 96, 128, 192, 256);
+    private static final ImmutableList<Integer> sizes = System.getProperties().containsKey("sizes")
+            ? ImmutableList.copyOf(Iterables.transform(Splitter.on(',').trimResults().split(System.getProperty("sizes")), Integer::valueOf))
+            : defaultSizes;
+    public static void main(final String[] args) throws IOException {
         System.out.println("Suggested vm settings: -server -Xms4g -Xmx4g -XX:NewSize=3g -XX:MaxNewSize=3g -verbose:gc");
+        final LiveMetrics liveMetrics = EnvSpec.metricsPort > 0 ? LiveMetrics.start(EnvSpec.metricsPort) : null;
         final String suite = System.getProperty("suite", "complex");
         switch (suite){
             case "select-lite":
                 System.out.println("Run "+suite);
                 runTestSeries(TestSuiteRunner::runSelectLiteTest);
                 break;
+            case "batch":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runBatchTestSuite);
+                break;
+            case "statements":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runStatementCachingTestSuite);
+                break;
+            case "keys":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runKeyDistributionTestSuite);
+                break;
+            case "pool-search":
+                System.out.println("Run "+suite);
+                runDatabaseSeries(databaseType -> TestSuiteRunner.runPoolSizeSearch(databaseType, Ordering.natural().max(sizes)));
+                break;
+            case "pools":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runPoolProviderTestSuite);
+                break;
+            case "async":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runAsyncTestSuite);
+                break;
+            case "redis":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runRedisTestSuite);
+                break;
+            case "scenario":
+                System.out.println("Run "+suite+" "+EnvSpec.scenario);
+                runTestSeries(TestSuiteRunner::runScenarioTestSuite);
+                break;
+            case "storm":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runConnectionStormTest);
+                break;
+            case "startup":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runPoolStartupTest);
+                break;
+            case "replicas":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runReplicaTestSuite);
+                break;
+            case "cache":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runCacheTestSuite);
+                break;
+            case "scan":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runScanTestSuite);
+                break;
+            case "export":
+                System.out.println("Run "+suite);
+                TestSuiteRunner.exportResults();
+                break;
+            case "rate-ramp":
+                System.out.println("Run "+suite);
+                runTestSeries(TestSuiteRunner::runRateRampTest);
+                break;
             default:
                 System.out.println("Run default (complex) suite:");
                 runTestSeries((databaseType, poolSize) ->  TestSuiteRunner.runComplexTestSuite(databaseType, ImmutableList.of(poolSize), EnvSpec.insertFirst));
                 runTestSeries((databaseType, poolSize) -> TestSuiteRunner.runComplexTestSuite(databaseType, ImmutableList.of(poolSize), false));
         }
 
+        WarmPools.closeAll();
         System.out.println("All Done");
+        if (liveMetrics != null) {
+            liveMetrics.stop();
+        }
     }
 
     private static void runTestSeries(final TestDelegate delegate){
+        runSelected(databaseTypes -> runTestSeries(delegate, databaseTypes));
+    }
+
+    /**
+     * Series over each database separately (sizes are chosen by delegate).
+     */
+    private static void runDatabaseSeries(final DatabaseDelegate delegate){
+        runSelected(databaseTypes -> {
+            for(final DatabaseType databaseType: databaseTypes) {
+                DataSeeder.ensureSeeded(databaseType);
+            }
+            for(final DatabaseType databaseType: databaseTypes) {
+                delegate.run(databaseType);
+            }
+        });
+    }
+
+    private static void runSelected(final SeriesDelegate series){
+        final List<DatabaseType> selected = new ArrayList<>();
+        for(final DatabaseType databaseType: DatabaseType.values()) {
+            if (System.getProperties().containsKey(databaseType.name())) {
+                selected.add(databaseType);
+            }
+        }
+        if (EnvSpec.parallel) {
+            runSeriesParallel(series, selected);
+        } else {
+            series.run(selected);
+        }
+    }
+
+    private static void runTestSeries(final TestDelegate delegate, final List<DatabaseType> databaseTypes){
+        for(final DatabaseType databaseType: databaseTypes) {
+            DataSeeder.ensureSeeded(databaseType);
+        }
         for(final int size:sizes) {
-            for(final DatabaseType databaseType: DatabaseType.values()) {
-                if (System.getProperties().containsKey(databaseType.name())) {
-                    delegate.runTest(databaseType, size);
-                }
+            for(final DatabaseType databaseType: databaseTypes) {
+                delegate.runTest(databaseType, size);
             }
         }
     }
 
+    /**
+     * One series thread per host: databases on different hosts are tested in parallel,
+     * databases sharing a host are never co-scheduled (they would compete for same server resources).
+     */
+    private static void runSeriesParallel(final SeriesDelegate series, final List<DatabaseType> databaseTypes){
+        final ListMultimap<String, DatabaseType> byHost = ArrayListMultimap.create();
+        for(final DatabaseType databaseType: databaseTypes) {
+            byHost.put(EnvSpec.hostFor(databaseType), databaseType);
+        }
+        final List<Thread> threads = new ArrayList<>();
+        for(final String host: byHost.keySet()) {
+            final List<DatabaseType> sameHost = byHost.get(host);
+            if (sameHost.size() > 1) {
+                System.out.println("Series of " + sameHost + " share host " + host + ", run them one after another");
+            }
+            final Thread thread = new Thread(new ThreadGroup("series-" + host), () -> series.run(sameHost), "series-" + host);
+            thread.start();
+            threads.add(thread);
+        }
+        for(final Thread thread: threads) {
+            Uninterruptibles.joinUninterruptibly(thread);
+        }
+    }
+
     private interface TestDelegate {
         void runTest(DatabaseType databaseType, int poolSize);
     }
+
+    private interface DatabaseDelegate {
+        void run(DatabaseType databaseType);
+    }
+
+    private interface SeriesDelegate {
+        void run(List<DatabaseType> databaseTypes);
+    }
 }
 
@@ -1,11 +1,46 @@
 package org.hobotometr.db;
 
-import java.util.Random;
+import org.HdrHistogram.Histogram;
 
 /**
  * @author dmitry.mamonov
  *         Created: 2014-09-14 12:24 AM
  */
 abstract class AbstractDatabase implements Database {
-    protected static final Random random = new Random();
+    protected KeyDistribution keys = KeyDistribution.uniform;
+
+    @Override
+    public void setKeyDistribution(final KeyDistribution keys) {
+        this.keys = keys;
+    }
+
+    @Override
+    public Histogram getIntervalPoolWait() {
+        return null;
+    }
+
+    @Override
+    public Histogram getIntervalQueryTime() {
+        return null;
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        return null;
+    }
+
+    @Override
+    public Histogram getIntervalConnectTime() {
+        return null;
+    }
+
+    @Override
+    public void prefill() {
+        //connections are opened by driver on its own.
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return -1;
+    }
 }
@@ -1,73 +1,310 @@
 package org.hobotometr.db;
 
-import com.zaxxer.hikari.HikariDataSource;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author dmitry.mamonov
  *         Created: 2014-09-14 12:25 AM
  */
 abstract class AbstractSqlDatabase extends AbstractDatabase {
-    private final HikariDataSource dataSource;
+    private static final long highestTrackableMicros = TimeUnit.MINUTES.toMicros(1);
+    private final PooledDataSource dataSource;
+    private final TimedDataSource timedDataSource;
     protected final JdbcTemplate sql;
+    private final StatementCache statementCache;
+    private final Recorder queryTime = new Recorder(highestTrackableMicros, 3);
+    private Histogram intervalQueryTime; //note [DM] accessed by sampler thread only.
 
-    protected AbstractSqlDatabase(final HikariDataSource dataSource) {
+    protected AbstractSqlDatabase(final PooledDataSource dataSource, final PoolOptions options) {
         this.dataSource = dataSource;
-        this.sql = new JdbcTemplate(dataSource);
+        this.timedDataSource = new TimedDataSource(dataSource);
+        this.sql = new JdbcTemplate(timedDataSource);
+        this.statementCache = options.getStatementCaching() != StatementCaching.none ? new StatementCache(sql, physicalConnectionClass()) : null;
+    }
+
+    /**
+     * @return driver connection interface, used to unwrap pool proxies.
+     */
+    protected abstract Class<?> physicalConnectionClass();
+
+    @Override
+    public Histogram getIntervalPoolWait() {
+        return timedDataSource.getIntervalAcquireTime();
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        return dataSource.getPoolState();
+    }
+
+    @Override
+    public Histogram getIntervalConnectTime() {
+        return dataSource.getIntervalConnectTime();
+    }
+
+    @Override
+    public void prefill() {
+        dataSource.prefill();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return dataSource.getConnectFailures();
+    }
+
+    @Override
+    public Histogram getIntervalQueryTime() {
+        intervalQueryTime = queryTime.getIntervalHistogram(intervalQueryTime);
+        return intervalQueryTime;
     }
 
+    /**
+     * Operation time excluding connection acquire, so pool overhead is separated from database time.
+     */
+    protected void recordQueryTime(final long startNanos) {
+        final long queryNanos = System.nanoTime() - startNanos - timedDataSource.takeAcquireNanos();
+        queryTime.recordValue(Math.max(0, Math.min(highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(queryNanos))));
+    }
+
+
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        final long startNanos = System.nanoTime();
+        try {
+            update(HotQuery.updateTiny, value, id);
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        final long startNanos = System.nanoTime();
+        try {
+            final List<Integer> values = sql.queryForList(HotQuery.selectCpuLite.sql, Integer.class, id);
+            return values.isEmpty() ? -1 : values.get(0);
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
 
+    @Override
+    public long countRows(final int idTo) {
+        return sql.queryForObject("SELECT COUNT(*) FROM hikari WHERE id BETWEEN 1 AND ?", Long.class, idTo);
+    }
 
     @Override
     public boolean insert() {
+        final long startNanos = System.nanoTime();
         try {
-            sql.update("INSERT INTO hikari (title, val) VALUES (repeat(?, 64), ?);", String.format("%08d", random.nextInt(100_000_000)), random.nextInt(1_000_000_000));
+            update(HotQuery.insert, Payloads.titlePart(), Payloads.value());
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
+        try {
+            update(HotQuery.updateTiny, Payloads.value(), keys.nextId(rangeFrom, rangeTo));
+            return true;
+        } catch (final RuntimeException re) {
+            return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    /**
+     * JDBC batch, it is sent in one round trip if driver supports it (see rewriteBatchedStatements for MySQL).
+     */
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        final long startNanos = System.nanoTime();
         try {
-            final int idForTinyUpdate = rangeFrom + (random.nextInt(rangeTo - rangeFrom));
-            sql.update("UPDATE hikari SET val=? WHERE id=?;", random.nextInt(1_000_000_000), idForTinyUpdate);
+            sql.batchUpdate(HotQuery.insert.sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                    ps.setString(1, Payloads.titlePart());
+                    ps.setInt(2, Payloads.value());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchSize;
+                }
+            });
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+            sql.batchUpdate(HotQuery.updateTiny.sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                    ps.setInt(1, Payloads.value());
+                    ps.setInt(2, ids[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ids.length;
+                }
+            });
+            return ids.length;
+        } catch (final RuntimeException re) {
+            return -1;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
         try {
-            sql.update("UPDATE hikari SET title=(repeat(?, 64) WHERE id=?;", String.format("%08d", random.nextInt(100_000_000)), rangeFrom + (random.nextInt(rangeTo - rangeFrom)));
+            update(HotQuery.updateWide, Payloads.titlePart(), keys.nextId(rangeFrom, rangeTo));
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
         try {
-            sql.queryForObject("SELECT val FROM hikari WHERE id=?", Integer.class, rangeFrom + (random.nextInt(rangeTo - rangeFrom)));
-            return true;
+            return query(HotQuery.selectCpuLite, keys.nextId(rangeFrom, rangeTo));
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        final long startNanos = System.nanoTime();
         try {
-            final int start = rangeFrom + random.nextInt(rangeTo - rangeFrom - size);
+            final int start = keys.nextId(rangeFrom, rangeTo - size);
             final int end = start + size;
-            sql.queryForObject("SELECT avg(val) FROM hikari WHERE id BETWEEN ? AND ?", Integer.class, start, end);
-            return true;
+            return query(HotQuery.selectCpuHeavy, start, end);
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final int start = keys.nextId(rangeFrom, rangeTo - size);
+            final int end = start + size;
+            final ScanResult result = new ScanResult();
+            switch (query) {
+                case stream:
+                    stream(result, start, end, fetchSize);
+                    break;
+                case keyset:
+                    for (long after = start - 1; ; after = result.getLastId()) {
+                        final long rowsBefore = result.getRows();
+                        sql.query(ScanSql.keysetPage, rs -> {
+                            result.add(rs.getLong(1), rs.getString(2));
+                            rs.getInt(3);
+                        }, after, end, fetchSize);
+                        if (result.getRows() - rowsBefore < fetchSize) {
+                            break;
+                        }
+                    }
+                    break;
+                case topN:
+                    sql.query(ScanSql.topN, rs -> {
+                        result.add(rs.getLong(1), rs.getString(2));
+                        rs.getInt(3);
+                    }, start, end, fetchSize);
+                    break;
+            }
+            return result;
+        } catch (final RuntimeException re) {
+            return null;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    /**
+     * Single query over cursor: rows are not materialized, neither by driver (fetch size) nor by caller.
+     */
+    private void stream(final ScanResult result, final int start, final int end, final int fetchSize) {
+        sql.execute((ConnectionCallback<Void>) connection -> {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false); //note [DM] postgres driver honors fetch size only within transaction.
+            try (final PreparedStatement statement = connection.prepareStatement(ScanSql.range)) {
+                statement.setFetchSize(streamFetchSize(fetchSize));
+                statement.setInt(1, start);
+                statement.setInt(2, end);
+                try (final ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(rs.getLong(1), rs.getString(2));
+                        rs.getInt(3);
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return JDBC fetch size which makes driver stream rows by given amount per round trip.
+     */
+    protected int streamFetchSize(final int fetchSize) {
+        return fetchSize;
+    }
+
+    private void update(final HotQuery query, final Object... args) {
+        if (statementCache != null) {
+            statementCache.update(query, args);
+        } else {
+            sql.update(query.sql, args);
+        }
+    }
+
+    private boolean query(final HotQuery query, final Object... args) {
+        if (statementCache != null) {
+            return statementCache.query(query, args);
+        } else {
+            sql.queryForObject(query.sql, Integer.class, args);
+            return true;
         }
     }
 
@@ -75,4 +312,27 @@ abstract class AbstractSqlDatabase extends AbstractDatabase {
     public void close() {
         this.dataSource.close();
     }
+
+    static final class ScanSql {
+        static final String range = "SELECT id, title, val FROM hikari WHERE id BETWEEN ? AND ?";
+        static final String keysetPage = "SELECT id, title, val FROM hikari WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+        static final String topN = "SELECT id, title, val FROM hikari WHERE id BETWEEN ? AND ? ORDER BY val DESC LIMIT ?";
+
+        private ScanSql() {
+        }
+    }
+
+    enum HotQuery {
+        insert("INSERT INTO hikari (title, val) VALUES (repeat(?, 64), ?);"),
+        updateTiny("UPDATE hikari SET val=? WHERE id=?;"),
+        updateWide("UPDATE hikari SET title=repeat(?, 64) WHERE id=?;"),
+        selectCpuLite("SELECT val FROM hikari WHERE id=?"),
+        selectCpuHeavy("SELECT avg(val) FROM hikari WHERE id BETWEEN ? AND ?");
+
+        final String sql;
+
+        HotQuery(final String sql) {
+            this.sql = sql;
+        }
+    }
 }
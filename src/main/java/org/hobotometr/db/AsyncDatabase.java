@@ -0,0 +1,23 @@
+package org.hobotometr.db;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Database with non-blocking variant of hot path operations: caller thread is not blocked while query is in flight.
+ * Futures complete with false on failure (same as synchronous methods return false), never exceptionally.
+ * Synchronous methods are still available, e.g. to create schema.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 08:20 PM
+ */
+public interface AsyncDatabase extends Database {
+    CompletableFuture<Boolean> insertAsync();
+
+    CompletableFuture<Boolean> updateTinyColumnByIdAsync(int rangeFrom, int rangeTo);
+
+    CompletableFuture<Boolean> updateWideColumnByIdAsync(int rangeFrom, int rangeTo);
+
+    CompletableFuture<Boolean> selectCpuLiteAsync(int rangeFrom, int rangeTo);
+
+    CompletableFuture<Boolean> selectCpuHeavyAsync(int rangeFrom, int rangeTo, int size);
+}
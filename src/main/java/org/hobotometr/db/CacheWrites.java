@@ -0,0 +1,18 @@
+package org.hobotometr.db;
+
+/**
+ * How {@link CachingDatabase} keeps cached rows fresh on tiny updates.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 02:20 AM
+ */
+public enum CacheWrites {
+    /**
+     * Update database, then drop cached row: next read of it is a miss.
+     */
+    invalidate,
+    /**
+     * Update database, then put new value into cache: next read of it is a hit.
+     */
+    through
+}
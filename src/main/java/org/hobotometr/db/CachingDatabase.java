@@ -0,0 +1,171 @@
+package org.hobotometr.db;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Read-through cache in front of any backend: point reads are served from {@link RowCache} and only misses
+ * reach the pool (concurrent misses of same row load it once), tiny updates go to database and then
+ * invalidate or overwrite cached row.
+ * Cache chooses ids of point reads and tiny updates on its own and passes them to backend by id.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 02:30 AM
+ */
+public class CachingDatabase implements Database {
+    private final Database delegate;
+    private final RowCache cache;
+    private KeyDistribution keys = KeyDistribution.uniform;
+
+    public CachingDatabase(final Database delegate, final RowCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void setKeyDistribution(final KeyDistribution keys) {
+        this.keys = keys;
+        delegate.setKeyDistribution(keys);
+    }
+
+    @Override
+    public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        try {
+            return selectValue(keys.nextId(rangeFrom, rangeTo)) >= 0;
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        final Integer value = cache.rows.get(id, missed -> {
+            final int loaded = delegate.selectValue(missed);
+            return loaded >= 0 ? loaded : null; //note [DM] missing rows are not cached.
+        });
+        return value != null ? value : -1;
+    }
+
+    @Override
+    public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        try {
+            updateValue(keys.nextId(rangeFrom, rangeTo), Payloads.value());
+            return true;
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        try {
+            delegate.updateValue(id, value);
+        } catch (final RuntimeException oops) {
+            cache.rows.invalidate(id); //note [DM] outcome is unknown.
+            throw oops;
+        }
+        if (cache.writes == CacheWrites.through) {
+            cache.rows.put(id, value);
+        } else {
+            cache.rows.invalidate(id);
+        }
+    }
+
+    /**
+     * Row by row, so each updated row is invalidated or overwritten (backend batch does not expose ids it chose).
+     */
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        try {
+            final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+            for (final int id : ids) {
+                updateValue(id, Payloads.value());
+            }
+            return ids.length;
+        } catch (final RuntimeException re) {
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        return delegate.selectCpuHeavy(rangeFrom, rangeTo, size); //note [DM] only val of rows is cached.
+    }
+
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        return delegate.scan(query, rangeFrom, rangeTo, size, fetchSize);
+    }
+
+    @Override
+    public boolean insert() {
+        return delegate.insert();
+    }
+
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        return delegate.insertBatch(batchSize);
+    }
+
+    @Override
+    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        return delegate.updateWideColumnById(rangeFrom, rangeTo);
+    }
+
+    @Override
+    public void init() {
+        delegate.init();
+    }
+
+    @Override
+    public long countRows(final int idTo) {
+        return delegate.countRows(idTo);
+    }
+
+    @Override
+    public void bulkLoad(final long rows) {
+        delegate.bulkLoad(rows);
+    }
+
+    @Override
+    public Histogram getIntervalPoolWait() {
+        return delegate.getIntervalPoolWait();
+    }
+
+    @Override
+    public Histogram getIntervalQueryTime() {
+        return delegate.getIntervalQueryTime();
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        return delegate.getPoolState();
+    }
+
+    @Override
+    public Histogram getIntervalConnectTime() {
+        return delegate.getIntervalConnectTime();
+    }
+
+    @Override
+    public void prefill() {
+        delegate.prefill();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return delegate.getConnectFailures();
+    }
+
+    @Override
+    public long countServerConnections() {
+        return delegate.countServerConnections();
+    }
+
+    /**
+     * Pool is owned by caller.
+     */
+    @Override
+    public void close() {
+        cache.rows.invalidateAll();
+    }
+}
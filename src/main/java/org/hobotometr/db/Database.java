@@ -1,5 +1,7 @@
 package org.hobotometr.db;
 
+import org.HdrHistogram.Histogram;
+
 /**
 * @author dmitry.mamonov
 *         Created: 2014-09-14 12:26 AM
@@ -7,15 +9,95 @@ package org.hobotometr.db;
 public interface Database {
     void init();
 
+    /**
+     * Set how ids are picked by update/select operations, must be called before load starts.
+     */
+    void setKeyDistribution(KeyDistribution keys);
+
+    /**
+     * @return amount of rows with id in range [1, idTo].
+     */
+    long countRows(int idTo);
+
+    /**
+     * Stream given amount of generated rows into database bypassing per-row round trips, used to seed data before tests.
+     */
+    void bulkLoad(long rows);
+
     boolean insert();
 
     boolean updateTinyColumnById(int rangeFrom, int rangeTo);
 
+    /**
+     * Insert {@code batchSize} rows in one round trip (JDBC batch, multi-row insert or bulk write).
+     */
+    boolean insertBatch(int batchSize);
+
+    /**
+     * Update tiny column of {@code batchSize} random rows in one round trip, see {@link KeyDistribution#nextDistinctIds}.
+     *
+     * @return rows updated (distinct ids of batch), or -1 when batch failed.
+     */
+    int updateTinyColumnByIdBatch(int rangeFrom, int rangeTo, int batchSize);
+
     boolean updateWideColumnById(int rangeFrom, int rangeTo);
 
     boolean selectCpuLite(int rangeFrom, int rangeTo);
 
     boolean selectCpuHeavy(int rangeFrom, int rangeTo, int size);
 
+    /**
+     * Read rows of random id range of given size, see {@link ScanQuery} for how {@code fetchSize} is used.
+     *
+     * @return rows and bytes read, or null when scan failed.
+     */
+    ScanResult scan(ScanQuery query, int rangeFrom, int rangeTo, int size, int fetchSize);
+
+    /**
+     * Set val of given row, used by read-after-write checks (not measured, failures are thrown).
+     */
+    void updateValue(int id, int value);
+
+    /**
+     * @return val of given row or -1 when there is no such row.
+     */
+    int selectValue(int id);
+
+    /**
+     * @return time spent waiting for a pooled connection (microseconds) since previous call, or null when backend can't track it.
+     */
+    Histogram getIntervalPoolWait();
+
+    /**
+     * @return time spent in operation excluding pool wait (microseconds) since previous call, or null when backend can't track it.
+     */
+    Histogram getIntervalQueryTime();
+
+    /**
+     * @return current pool state or null when backend can't track it.
+     */
+    PoolState getPoolState();
+
+    /**
+     * @return time spent opening physical connections (microseconds) since previous call, or null when backend can't track it.
+     */
+    Histogram getIntervalConnectTime();
+
+    /**
+     * Open all pooled connections up front (blocks till they are open), so early samples are not skewed by pool fill.
+     * No-op when backend opens connections eagerly or does not pool them.
+     */
+    void prefill();
+
+    /**
+     * @return physical connections which failed to open since pool creation, or -1 when backend can't track it.
+     */
+    long getConnectFailures();
+
+    /**
+     * @return client connections currently open on server side (all clients, not only this pool).
+     */
+    long countServerConnections();
+
     void close();
 }
@@ -1,15 +1,16 @@
 package org.hobotometr.db;
 
+import com.google.common.net.HostAndPort;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientOptions;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.mysql.jdbc.jdbc2.optional.MysqlDataSource;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import org.postgresql.ds.PGSimpleDataSource;
 
 import java.net.UnknownHostException;
-import java.util.concurrent.TimeUnit;
-
-import static java.util.concurrent.TimeUnit.HOURS;
-import static java.util.concurrent.TimeUnit.MINUTES;
+import java.sql.SQLException;
+import java.time.Duration;
 
 /**
 * @author dmitry.mamonov
@@ -18,30 +19,77 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 public enum DatabaseType {
     postgres("postgres", "postgres") {
         @Override
-        public Database createConnectionPool(final String host, final int poolSize) {
-            final HikariConfig config = createDefaultPoolConfig(this, host, poolSize);
+        public Database createConnectionPool(final String host, final int poolSize, final PoolOptions options) {
+            final PGSimpleDataSource driver = new PGSimpleDataSource();
+            final HostAndPort address = HostAndPort.fromString(host);
+            driver.setServerName(address.getHostText());
+            driver.setPortNumber(address.getPortOrDefault(5432));
+            driver.setDatabaseName("demo");
+            driver.setUser(this.user);
+            driver.setPassword(this.password);
+            switch (options.getStatementCaching()) {
+                case client:
+                    driver.setPrepareThreshold(0); //never switch to server side prepared statement.
+                    break;
+                case server:
+                    driver.setPrepareThreshold(1); //server side prepared statement since first execution.
+                    break;
+            }
+
+            return new PostgreSql(options.getPoolProvider().create("demo-ds", driver, poolSize), options);
+        }
 
-            config.setDataSourceClassName("org.postgresql.ds.PGSimpleDataSource");
+        @Override
+        public boolean hasAsyncDriver() {
+            return true;
+        }
 
-            return new PostgreSql(new HikariDataSource(config));
+        @Override
+        public AsyncDatabase createAsyncConnectionPool(final String host, final int poolSize, final PoolOptions options) {
+            return new PostgreSqlAsync(host, this.user, this.password, poolSize, options);
         }
     },
     mysql("root", "123") {
         @Override
-        public Database createConnectionPool(final String host, final int poolSize) {
-            final HikariConfig config = createDefaultPoolConfig(this, host, poolSize);
+        public Database createConnectionPool(final String host, final int poolSize, final PoolOptions options) {
+            final MysqlDataSource driver = new MysqlDataSource();
+            final HostAndPort address = HostAndPort.fromString(host);
+            driver.setServerName(address.getHostText());
+            driver.setPort(address.getPortOrDefault(3306));
+            driver.setDatabaseName("demo");
+            driver.setUser(this.user);
+            driver.setPassword(this.password);
+            driver.setRewriteBatchedStatements(true); //send JDBC batch in one round trip.
+            try {
+                switch (options.getStatementCaching()) {
+                    case client:
+                        driver.setCachePrepStmts(true);
+                        driver.setUseServerPrepStmts(false);
+                        driver.setPrepStmtCacheSize(250);
+                        driver.setPrepStmtCacheSqlLimit(2048);
+                        break;
+                    case server:
+                        driver.setCachePrepStmts(true);
+                        driver.setUseServerPrepStmts(true);
+                        driver.setPrepStmtCacheSize(250);
+                        driver.setPrepStmtCacheSqlLimit(2048);
+                        break;
+                }
+            } catch (final SQLException e) {
+                throw new RuntimeException(e);
+            }
 
-            config.setDataSourceClassName("com.mysql.jdbc.jdbc2.optional.MysqlDataSource");
-            config.addDataSourceProperty("port", "3306");
-            config.addDataSourceProperty("user", this.user);
-            config.addDataSourceProperty("password", this.password);
+            return new MySql(options.getPoolProvider().create("demo-ds", driver, poolSize), options);
+        }
 
-            return new MySql(new HikariDataSource(config));
+        @Override
+        public boolean hasStreamFetchSize() {
+            return false;
         }
     },
     mongo("mongo", "mongo") {
         @Override
-        public Database createConnectionPool(final String host, final int poolSize) {
+        public Database createConnectionPool(final String host, final int poolSize, final PoolOptions options) {
             final MongoClient client;
             try {
                 client = new MongoClient(host, new MongoClientOptions.Builder()
@@ -56,8 +104,17 @@ public enum DatabaseType {
     },
     redis("redis", "redis") {
         @Override
-        public Database createConnectionPool(final String host, final int poolSize) {
-            throw new RuntimeException("TODO [DM] not implemented yet");
+        public Database createConnectionPool(final String host, final int poolSize, final PoolOptions options) {
+            final HostAndPort address = HostAndPort.fromString(host);
+            final RedisClient client = RedisClient.create(RedisURI.Builder.redis(address.getHostText(), address.getPortOrDefault(6379))
+                    .withTimeout(Duration.ofSeconds(1))
+                    .build());
+            return new Redis(client, poolSize, options);
+        }
+
+        @Override
+        public boolean hasRangeScan() {
+            return false;
         }
     };
     protected final String user;
@@ -68,28 +125,44 @@ public enum DatabaseType {
         this.password = password;
     }
 
-    public abstract Database createConnectionPool(String host, int poolSize);
-
-    private static HikariConfig createDefaultPoolConfig(final DatabaseType databaseType, final String host, final int poolSize) {
-        final HikariConfig config = new HikariConfig();
-        config.setAutoCommit(true);
-        config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(1));
-        config.setIdleTimeout(MINUTES.toMillis(5));
-        config.setMaxLifetime(HOURS.toMillis(1));
-        config.setLeakDetectionThreshold(0);
-        config.setInitializationFailFast(false);
-        config.setJdbc4ConnectionTest(true);
-        //config.setConnectionInitSql("SELECT 1");
-        config.setMaximumPoolSize(poolSize);
-        config.setIsolateInternalQueries(false);
-        config.setRegisterMbeans(false);
-        config.setUsername(databaseType.user);
-        config.setPassword(databaseType.password);
-
-        config.addDataSourceProperty("databaseName", "demo");
-        config.setPoolName("demo-ds");
-        config.addDataSourceProperty("serverName", host);
-
-        return config;
+    public Database createConnectionPool(final String host, final int poolSize) {
+        return createConnectionPool(host, poolSize, PoolOptions.defaults);
+    }
+
+    /**
+     * @param host host name, optionally with port (host:port) when it is not default one.
+     */
+    public abstract Database createConnectionPool(String host, int poolSize, PoolOptions options);
+
+    /**
+     * @return true when backend can run {@link ScanQuery range scans}.
+     */
+    public boolean hasRangeScan() {
+        return true;
+    }
+
+    /**
+     * @return true when {@link ScanQuery#stream} honors fetch size, false when driver streams rows one by one regardless of it.
+     */
+    public boolean hasStreamFetchSize() {
+        return true;
+    }
+
+    /**
+     * Mongo async driver requires 3.x java driver, which spring-data-mongodb used by {@link MongoDb} does not support,
+     * and a thread per connection facade over blocking driver would not be comparable.
+     *
+     * @return true when there is non-blocking driver, see {@link #createAsyncConnectionPool}.
+     */
+    public boolean hasAsyncDriver() {
+        return false;
+    }
+
+    /**
+     * @param options {@link PoolOptions#getAsyncInFlight()} limits operations pipelined per connection.
+     * @return pool over non-blocking driver, null when there is no such driver (see {@link #hasAsyncDriver()}).
+     */
+    public AsyncDatabase createAsyncConnectionPool(final String host, final int poolSize, final PoolOptions options) {
+        return null;
     }
 }
@@ -0,0 +1,76 @@
+package org.hobotometr.db;
+
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stream of generated "title TAB val NEWLINE" rows for bulk loading (PostgreSQL COPY text format, MySQL LOAD DATA).
+ * Rows are generated on the fly, so any amount of data can be streamed with constant memory.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 02:30 PM
+ */
+class GeneratedRowsInputStream extends InputStream {
+    private static final int titleRepeat = 64; //same as repeat(?, 64) in insert statements.
+    private final long rows;
+    private final byte[] row = new byte[8 * titleRepeat + 1 + 11 + 1];
+    private long produced = 0;
+    private int rowLength = 0;
+    private int position = 0;
+
+    GeneratedRowsInputStream(final long rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public int read() {
+        if (position == rowLength && !nextRow()) {
+            return -1;
+        }
+        return row[position++];
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int copied = 0;
+        while (copied < length) {
+            if (position == rowLength && !nextRow()) {
+                break;
+            }
+            final int chunk = Math.min(length - copied, rowLength - position);
+            System.arraycopy(row, position, buffer, offset + copied, chunk);
+            position += chunk;
+            copied += chunk;
+        }
+        return copied == 0 ? -1 : copied;
+    }
+
+    private boolean nextRow() {
+        if (produced == rows) {
+            return false;
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int titlePart = random.nextInt(100_000_000);
+        for (int digit = 7; digit >= 0; digit--) {
+            row[digit] = (byte) ('0' + titlePart % 10);
+            titlePart /= 10;
+        }
+        for (int i = 1; i < titleRepeat; i++) {
+            System.arraycopy(row, 0, row, i * 8, 8);
+        }
+        int length = 8 * titleRepeat;
+        row[length++] = '\t';
+        final String val = Integer.toString(random.nextInt(1_000_000_000));
+        for (int i = 0; i < val.length(); i++) {
+            row[length++] = (byte) val.charAt(i);
+        }
+        row[length++] = '\n';
+        rowLength = length;
+        position = 0;
+        produced++;
+        return true;
+    }
+}
@@ -0,0 +1,218 @@
+package org.hobotometr.db;
+
+import com.google.common.base.Splitter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * How load threads pick row ids from [rangeFrom, rangeTo), allows to simulate skewed production access:
+ * buffer pool hit rate and row lock contention depend on it a lot.
+ * Spec format (file name friendly): uniform, zipfian_0.99, hotspot_90_10, latest_0.99.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 04:50 PM
+ */
+public abstract class KeyDistribution {
+    public static final KeyDistribution uniform = new KeyDistribution("uniform") {
+        @Override
+        public int nextId(final int rangeFrom, final int rangeTo) {
+            return ThreadLocalRandom.current().nextInt(rangeFrom, rangeTo);
+        }
+    };
+
+    private final String spec;
+
+    private KeyDistribution(final String spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * @return id in range [rangeFrom, rangeTo), must not allocate (called on hot path).
+     */
+    public abstract int nextId(int rangeFrom, int rangeTo);
+
+    /**
+     * Ids of batch update: concurrent batches lock rows in same (ascending) order, so they don't deadlock each other.
+     *
+     * @return ids of {@code count} draws sorted ascending, duplicates dropped.
+     */
+    public int[] nextDistinctIds(final int rangeFrom, final int rangeTo, final int count) {
+        final int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId(rangeFrom, rangeTo);
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct < count ? Arrays.copyOf(ids, distinct) : ids;
+    }
+
+    /**
+     * Zipfian distribution over scrambled ids: few hot rows spread over whole table (not clustered at its beginning).
+     *
+     * @param theta skew, 0.99 is YCSB default (about 1% of keys take half of accesses on 100k rows).
+     */
+    public static KeyDistribution zipfian(final double theta) {
+        final Zipfian zipfian = new Zipfian(theta);
+        return new KeyDistribution(String.format(Locale.ROOT, "zipfian_%.2f", theta)) {
+            @Override
+            public int nextId(final int rangeFrom, final int rangeTo) {
+                final int size = rangeTo - rangeFrom;
+                return rangeFrom + (int) ((fnvHash64(zipfian.nextRank(size)) & Long.MAX_VALUE) % size);
+            }
+        };
+    }
+
+    /**
+     * Zipfian distribution with most recently inserted rows (highest ids) being the hottest.
+     */
+    public static KeyDistribution latest(final double theta) {
+        final Zipfian zipfian = new Zipfian(theta);
+        return new KeyDistribution(String.format(Locale.ROOT, "latest_%.2f", theta)) {
+            @Override
+            public int nextId(final int rangeFrom, final int rangeTo) {
+                return rangeTo - 1 - zipfian.nextRank(rangeTo - rangeFrom);
+            }
+        };
+    }
+
+    /**
+     * @param hotOpsPercent  share of operations hitting hot set.
+     * @param hotKeysPercent share of keys in hot set (first keys of range).
+     */
+    public static KeyDistribution hotspot(final int hotOpsPercent, final int hotKeysPercent) {
+        checkArgument(hotOpsPercent >= 0 && hotOpsPercent <= 100, "Invalid hot ops percent: %s", hotOpsPercent);
+        checkArgument(hotKeysPercent > 0 && hotKeysPercent < 100, "Invalid hot keys percent: %s", hotKeysPercent);
+        return new KeyDistribution(String.format("hotspot_%d_%d", hotOpsPercent, hotKeysPercent)) {
+            @Override
+            public int nextId(final int rangeFrom, final int rangeTo) {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int hotTo = rangeFrom + Math.max(1, (int) ((long) (rangeTo - rangeFrom) * hotKeysPercent / 100));
+                if (random.nextInt(100) < hotOpsPercent || hotTo >= rangeTo) {
+                    return random.nextInt(rangeFrom, hotTo);
+                } else {
+                    return random.nextInt(hotTo, rangeTo);
+                }
+            }
+        };
+    }
+
+    public static KeyDistribution parse(final String spec) {
+        final List<String> parts = Splitter.on('_').trimResults().splitToList(spec);
+        switch (parts.get(0)) {
+            case "uniform":
+                return uniform;
+            case "zipfian":
+                return zipfian(parts.size() > 1 ? Double.parseDouble(parts.get(1)) : 0.99);
+            case "latest":
+                return latest(parts.size() > 1 ? Double.parseDouble(parts.get(1)) : 0.99);
+            case "hotspot":
+                checkArgument(parts.size() == 3, "Hotspot spec must be hotspot_<ops percent>_<keys percent>: %s", spec);
+                return hotspot(Integer.parseInt(parts.get(1)), Integer.parseInt(parts.get(2)));
+            default:
+                throw new IllegalArgumentException("Unknown key distribution: " + spec);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static long fnvHash64(final long value) {
+        long hash = 0xCBF29CE484222325L;
+        long rest = value;
+        for (int i = 0; i < 8; i++) {
+            hash ^= rest & 0xff;
+            hash *= 0x100000001B3L;
+            rest >>= 8;
+        }
+        return hash;
+    }
+
+    /**
+     * Rank generator from "Quickly Generating Billion-Record Synthetic Databases" (Gray et al.), as in YCSB.
+     * Zeta constant is computed once per range size (O(n)) and kept, as clients of one test use several ranges
+     * (reads, heavy reads, updates), each next value is O(1).
+     */
+    private static final class Zipfian {
+        private final double theta;
+        private final double alpha;
+        /**
+         * Copy on write, there are few distinct sizes: lookup is a short scan which does not allocate (unlike boxed map keys).
+         */
+        private volatile Constants[] constants = new Constants[0];
+
+        Zipfian(final double theta) {
+            checkArgument(theta > 0 && theta < 1, "Zipfian theta must be in (0, 1): %s", theta);
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+        }
+
+        /**
+         * @return rank in [0, size), 0 being the most popular one.
+         */
+        int nextRank(final int size) {
+            final Constants current = constantsOf(size);
+            final double u = ThreadLocalRandom.current().nextDouble();
+            final double uz = u * current.zetaN;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return Math.min(1, size - 1);
+            }
+            return Math.min(size - 1, (int) (size * Math.pow(current.eta * u - current.eta + 1, alpha)));
+        }
+
+        private Constants constantsOf(final int size) {
+            for (final Constants known : constants) {
+                if (known.size == size) {
+                    return known;
+                }
+            }
+            synchronized (this) {
+                final Constants[] known = constants;
+                for (final Constants constant : known) {
+                    if (constant.size == size) {
+                        return constant;
+                    }
+                }
+                final Constants computed = new Constants(size, theta, zeta(size, theta), zeta(2, theta));
+                final Constants[] grown = Arrays.copyOf(known, known.length + 1);
+                grown[known.length] = computed;
+                constants = grown;
+                return computed;
+            }
+        }
+
+        private static double zeta(final int size, final double theta) {
+            double sum = 0;
+            for (int i = 1; i <= size; i++) {
+                sum += 1.0 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        private static final class Constants {
+            final int size;
+            final double zetaN;
+            final double eta;
+
+            Constants(final int size, final double theta, final double zetaN, final double zeta2) {
+                this.size = size;
+                this.zetaN = zetaN;
+                this.eta = size > 0 ? (1 - Math.pow(2.0 / size, 1 - theta)) / (1 - zeta2 / zetaN) : 0;
+            }
+        }
+    }
+}
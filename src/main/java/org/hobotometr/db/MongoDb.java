@@ -1,7 +1,14 @@
 package org.hobotometr.db;
 
 import com.google.common.base.Charsets;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -15,6 +22,9 @@ import org.springframework.data.mongodb.core.query.Update;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -24,14 +34,38 @@ import static com.google.common.base.Preconditions.checkState;
  *         Created: 2014-09-14 12:25 AM
  */
 class MongoDb extends AbstractDatabase {
+    private static final int bulkLoadChunk = 10_000;
+    private static final long highestTrackableMicros = TimeUnit.MINUTES.toMicros(1);
     private final MongoClient client;
     private final MongoTemplate mongo;
+    private final Recorder queryTime = new Recorder(highestTrackableMicros, 3);
+    private Histogram intervalQueryTime; //note [DM] accessed by sampler thread only.
 
     public MongoDb(final MongoClient client) {
         this.client = client;
         this.mongo = new MongoTemplate(new SimpleMongoDbFactory(client,"demo"));
     }
 
+    @Override
+    public long countServerConnections() {
+        final DBObject connections = (DBObject) mongo.executeCommand("{serverStatus: 1}").get("connections");
+        return ((Number) connections.get("current")).longValue();
+    }
+
+    @Override
+    public Histogram getIntervalQueryTime() {
+        intervalQueryTime = queryTime.getIntervalHistogram(intervalQueryTime);
+        return intervalQueryTime;
+    }
+
+    /**
+     * Driver pools connections internally, so unlike SQL backends operation time includes connection checkout
+     * (it is close to zero while pool is not smaller than amount of clients).
+     */
+    private void recordQueryTime(final long startNanos) {
+        queryTime.recordValue(Math.max(0, Math.min(highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos))));
+    }
+
     @Override
     public void init() {
         try {
@@ -52,70 +86,210 @@ class MongoDb extends AbstractDatabase {
         mongo.indexOps("hikari").ensureIndex(new Index().on("val", Sort.Direction.ASC));
     }
 
+    @Override
+    public long countRows(final int idTo) {
+        return mongo.count(new Query(Criteria.where("id").gte(1).lte(idTo)), "hikari");
+    }
+
+    /**
+     * Unordered bulk inserts of {@link #bulkLoadChunk} documents each.
+     */
+    @Override
+    public void bulkLoad(final long rows) {
+        final DBCollection collection = mongo.getCollection("hikari");
+        for (long loaded = 0; loaded < rows; ) {
+            final BulkWriteOperation bulk = collection.initializeUnorderedBulkOperation();
+            final int chunk = (int) Math.min(bulkLoadChunk, rows - loaded);
+            for (int i = 0; i < chunk; i++) {
+                final MongoDomain domain = new MongoDomain();
+                bulk.insert(new BasicDBObject("id", domain.id).append("title", domain.title).append("val", domain.val));
+            }
+            bulk.execute();
+            loaded += chunk;
+        }
+    }
+
     @Override
     public boolean insert() {
+        final long startNanos = System.nanoTime();
         try {
             mongo.insert(new MongoDomain(), "hikari");
             return true;
         } catch (final RuntimeException re) {
             //System.out.println(re.getMessage());
             return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        final long startNanos = System.nanoTime();
+        try {
+            mongo.updateFirst(new Query(Criteria.where("id").is(id)), new Update().set("val", value), "hikari");
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        final long startNanos = System.nanoTime();
+        try {
+            final MongoDomain row = mongo.findOne(new Query(Criteria.where("id").is(id)), MongoDomain.class, "hikari");
+            return row != null ? row.val : -1;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
         try {
-            final int idForTinyUpdate = rangeFrom + (random.nextInt(rangeTo - rangeFrom));
-            mongo.updateFirst(new Query(Criteria.where("id").is(idForTinyUpdate)), new Update().set("val", random.nextInt()), "hikari");
+            mongo.updateFirst(new Query(Criteria.where("id").is(keys.nextId(rangeFrom, rangeTo))), new Update().set("val", Payloads.value()), "hikari");
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
-    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+    public boolean insertBatch(final int batchSize) {
+        final long startNanos = System.nanoTime();
         try {
-            final int idForWideUpdate = rangeFrom + (random.nextInt(rangeTo - rangeFrom));
-            final StringBuilder titleBuilder = new StringBuilder();
-            {
-                final String titlePart = String.format("%08d", random.nextInt(100_000_000));
-                for (int i = 0; i < 16; i++) {
-                    titleBuilder.append(titlePart);
-                }
+            final List<MongoDomain> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(new MongoDomain());
+            }
+            mongo.insert(batch, "hikari");
+            return true;
+        } catch (final RuntimeException re) {
+            return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+            final BulkWriteOperation bulk = mongo.getCollection("hikari").initializeUnorderedBulkOperation();
+            for (final int id : ids) {
+                bulk.find(new BasicDBObject("id", id)).updateOne(new BasicDBObject("$set", new BasicDBObject("val", Payloads.value())));
             }
-            mongo.updateFirst(new Query(Criteria.where("id").is(idForWideUpdate)), new Update().set("title", titleBuilder.toString()), "hikari");
+            bulk.execute();
+            return ids.length;
+        } catch (final RuntimeException re) {
+            return -1;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    @Override
+    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
+        try {
+            mongo.updateFirst(new Query(Criteria.where("id").is(keys.nextId(rangeFrom, rangeTo))), new Update().set("title", Payloads.wideTitle()), "hikari");
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
     @Override
     public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        final long startNanos = System.nanoTime();
         try {
-            final int idToFind = rangeFrom + (random.nextInt(rangeTo - rangeFrom));
-            mongo.find(new Query(Criteria.where("id").is(idToFind)), MongoDomain.class);
+            mongo.find(new Query(Criteria.where("id").is(keys.nextId(rangeFrom, rangeTo))), MongoDomain.class);
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
         }
     }
 
+    /**
+     * Average val over id range, single group like avg(val) of SQL backends.
+     */
     @Override
     public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        final long startNanos = System.nanoTime();
         try {
-            final int start = rangeFrom + random.nextInt(rangeTo - rangeFrom - size);
+            final int start = keys.nextId(rangeFrom, rangeTo - size);
             final int end = start + size;
             mongo.aggregate(Aggregation.newAggregation(
                             Aggregation.match(new Criteria("id").lte(end).gte(start)),
-                            Aggregation.group("val").sum("val").as("val")
+                            Aggregation.group().avg("val").as("val")
                     ),
-                    "hikari", MongoDomain.class);
+                    "hikari", DBObject.class);
             return true;
         } catch (final RuntimeException re) {
             return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    /**
+     * Same queries as SQL backends over raw driver cursors, so documents are not mapped and collected into lists.
+     */
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final int start = keys.nextId(rangeFrom, rangeTo - size);
+            final int end = start + size;
+            final DBCollection collection = mongo.getCollection("hikari");
+            final ScanResult result = new ScanResult();
+            switch (query) {
+                case stream:
+                    read(collection.find(idRange(start - 1, end), scanFields).batchSize(fetchSize), result);
+                    break;
+                case keyset:
+                    for (long after = start - 1; ; after = result.getLastId()) {
+                        final long rowsBefore = result.getRows();
+                        read(collection.find(idRange(after, end), scanFields).sort(new BasicDBObject("id", 1)).limit(fetchSize), result);
+                        if (result.getRows() - rowsBefore < fetchSize) {
+                            break;
+                        }
+                    }
+                    break;
+                case topN:
+                    read(collection.find(idRange(start - 1, end), scanFields).sort(new BasicDBObject("val", -1)).limit(fetchSize), result);
+                    break;
+            }
+            return result;
+        } catch (final RuntimeException re) {
+            return null;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    private static final DBObject scanFields = new BasicDBObject("_id", 0).append("id", 1).append("title", 1).append("val", 1);
+
+    private static DBObject idRange(final long after, final long to) {
+        return new BasicDBObject("id", new BasicDBObject("$gt", after).append("$lte", to));
+    }
+
+    private static void read(final DBCursor cursor, final ScanResult result) {
+        try {
+            for (final DBObject row : cursor) {
+                result.add(((Number) row.get("id")).longValue(), (String) row.get("title"));
+                row.get("val");
+            }
+        } finally {
+            cursor.close();
         }
     }
 
@@ -165,16 +339,8 @@ class MongoDb extends AbstractDatabase {
 
         public MongoDomain() {
             this.id=persistentId.nextId();
-            final StringBuilder titleBuilder = new StringBuilder();
-            {
-                final String titlePart = String.format("%08d", random.nextInt(100_000_000));
-                for (int i = 0; i < 16; i++) {
-                    titleBuilder.append(titlePart);
-                }
-            }
-            this.title = titleBuilder.toString();
-            this.val = random.nextInt();
-
+            this.title = Payloads.wideTitle();
+            this.val = Payloads.value();
         }
     }
 }
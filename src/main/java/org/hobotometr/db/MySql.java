@@ -1,14 +1,33 @@
 package org.hobotometr.db;
 
-import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.StatementCallback;
 
 /**
  * @author dmitry.mamonov
  *         Created: 2014-09-14 12:25 AM
  */
 class MySql extends AbstractSqlDatabase {
-    public MySql(final HikariDataSource dataSource) {
-        super(dataSource);
+    public MySql(final PooledDataSource dataSource, final PoolOptions options) {
+        super(dataSource, options);
+    }
+
+    @Override
+    protected Class<?> physicalConnectionClass() {
+        return com.mysql.jdbc.Connection.class;
+    }
+
+    /**
+     * Connector/J honors other fetch sizes only with useCursorFetch, which turns all statements into server prepared ones
+     * (and so breaks statement caching comparison), so rows are streamed one by one over the socket instead.
+     */
+    @Override
+    protected int streamFetchSize(final int fetchSize) {
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public long countServerConnections() {
+        return sql.queryForObject("SHOW GLOBAL STATUS LIKE 'Threads_connected'", (resultSet, row) -> resultSet.getLong(2));
     }
 
     @Override
@@ -31,4 +50,18 @@ class MySql extends AbstractSqlDatabase {
             }
         }
     }
+
+    /**
+     * Stream rows with LOAD DATA LOCAL INFILE, driver reads "file" from given input stream.
+     */
+    @Override
+    public void bulkLoad(final long rows) {
+        sql.execute((StatementCallback<Boolean>) statement -> {
+            statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(new GeneratedRowsInputStream(rows));
+            return statement.execute("" +
+                    "LOAD DATA LOCAL INFILE 'generated.tsv' INTO TABLE hikari\n" +
+                    "  FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n'\n" +
+                    "  (title, val);");
+        });
+    }
 }
@@ -0,0 +1,77 @@
+package org.hobotometr.db;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Allocation free generator of query arguments for load threads.
+ * Keys and values come from per-thread {@link ThreadLocalRandom} (no shared seed to CAS on),
+ * string payloads are picked from pools precomputed once, so hot path never formats or concatenates.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 04:10 PM
+ */
+public final class Payloads {
+    private static final int poolSize = 1 << 12; //power of two, so index is a mask.
+    private static final int wideTitleRepeat = 16;
+    private static final String[] titleParts = new String[poolSize];
+    private static final String[] wideTitles = new String[poolSize];
+
+    static {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final StringBuilder wideTitle = new StringBuilder(8 * wideTitleRepeat);
+        for (int i = 0; i < poolSize; i++) {
+            titleParts[i] = String.format("%08d", random.nextInt(100_000_000));
+            wideTitle.setLength(0);
+            for (int repeat = 0; repeat < wideTitleRepeat; repeat++) {
+                wideTitle.append(titleParts[i]);
+            }
+            wideTitles[i] = wideTitle.toString();
+        }
+    }
+
+    private Payloads() {
+        //note [DM] static only.
+    }
+
+    static int value() {
+        return ThreadLocalRandom.current().nextInt(1_000_000_000);
+    }
+
+    /**
+     * @return 8 digits title part, SQL databases repeat it on server side.
+     */
+    static String titlePart() {
+        return titleParts[ThreadLocalRandom.current().nextInt() & (poolSize - 1)];
+    }
+
+    /**
+     * @return title part repeated 16 times, for databases without server side repeat().
+     */
+    static String wideTitle() {
+        return wideTitles[ThreadLocalRandom.current().nextInt() & (poolSize - 1)];
+    }
+
+    /**
+     * Run generator (with given keys distribution) in a loop on current thread and measure heap allocated by it.
+     *
+     * @return allocated bytes per generated set of arguments, or -1 when JVM can't track thread allocations.
+     */
+    public static double measureAllocatedBytesPerOp(final KeyDistribution keys, final int ops) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        long blackhole = 0;
+        for (int i = 0; i < ops; i++) { //warm up, so allocations eliminated by JIT are not counted.
+            blackhole += keys.nextId(1, 100_000) + value() + titlePart().length() + wideTitle().length();
+        }
+        final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ops; i++) {
+            blackhole += keys.nextId(1, 100_000) + value() + titlePart().length() + wideTitle().length();
+        }
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return blackhole == 0 ? -1 : (double) allocated / ops;
+    }
+}
@@ -0,0 +1,92 @@
+package org.hobotometr.db;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Connection pool options beyond pool size.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 03:25 PM
+ */
+public class PoolOptions {
+    public static final PoolOptions defaults = new Builder().build();
+
+    private PoolProvider poolProvider = PoolProvider.hikari;
+    private StatementCaching statementCaching = StatementCaching.none;
+    private RedisMode redisMode = RedisMode.pooled;
+    private int pipelineDepth = 1;
+    private int asyncInFlight = 0;
+
+    private PoolOptions() {
+        //note [DM] use Builder instead.
+    }
+
+    public PoolProvider getPoolProvider() {
+        return poolProvider;
+    }
+
+    public StatementCaching getStatementCaching() {
+        return statementCaching;
+    }
+
+    public RedisMode getRedisMode() {
+        return redisMode;
+    }
+
+    /**
+     * @return commands sent per round trip by each single row operation (Redis only).
+     */
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * @return operations kept in flight per client over async driver, 0 means blocking driver.
+     */
+    public int getAsyncInFlight() {
+        return asyncInFlight;
+    }
+
+    @Override
+    public String toString() {
+        return poolProvider + "," + statementCaching + "," + redisMode + "," + pipelineDepth + "," + asyncInFlight;
+    }
+
+    public static class Builder {
+        private PoolOptions delegate = new PoolOptions();
+
+        public Builder setPoolProvider(final PoolProvider poolProvider) {
+            delegate.poolProvider = checkNotNull(poolProvider);
+            return this;
+        }
+
+        public Builder setStatementCaching(final StatementCaching statementCaching) {
+            delegate.statementCaching = checkNotNull(statementCaching);
+            return this;
+        }
+
+        public Builder setRedisMode(final RedisMode redisMode) {
+            delegate.redisMode = checkNotNull(redisMode);
+            return this;
+        }
+
+        public Builder setPipelineDepth(final int pipelineDepth) {
+            checkArgument(pipelineDepth >= 1, "Invalid pipeline depth: %s", pipelineDepth);
+            delegate.pipelineDepth = pipelineDepth;
+            return this;
+        }
+
+        public Builder setAsyncInFlight(final int asyncInFlight) {
+            checkArgument(asyncInFlight >= 0, "Invalid in flight limit: %s", asyncInFlight);
+            delegate.asyncInFlight = asyncInFlight;
+            return this;
+        }
+
+        public PoolOptions build() {
+            final PoolOptions result = checkNotNull(this.delegate, "Builder closed");
+            this.delegate = null; //close builder.
+            return result;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.hobotometr.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPoolMBean;
+import org.apache.commons.dbcp2.DataSourceConnectionFactory;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.dbcp2.PoolableConnectionFactory;
+import org.apache.commons.dbcp2.PoolingDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+
+import javax.management.JMX;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Connection pool implementations compared under identical load, all of them wrap same driver data source
+ * and are configured alike: fixed size, 1 sec acquire timeout, no validation on borrow.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 07:45 PM
+ */
+public enum PoolProvider {
+    hikari {
+        @Override
+        PooledDataSource create(final String name, final TimedDataSource driverDataSource, final int poolSize) {
+            final HikariConfig config = new HikariConfig();
+            config.setDataSource(driverDataSource);
+            config.setAutoCommit(true);
+            config.setConnectionTimeout(acquireTimeoutMillis);
+            config.setIdleTimeout(MINUTES.toMillis(5));
+            config.setMaxLifetime(HOURS.toMillis(1));
+            config.setLeakDetectionThreshold(0);
+            config.setInitializationFailFast(false);
+            config.setJdbc4ConnectionTest(true);
+            //config.setConnectionInitSql("SELECT 1");
+            config.setMaximumPoolSize(poolSize);
+            config.setIsolateInternalQueries(false);
+            config.setRegisterMbeans(true); //note [DM] pool state is only exposed through JMX in this version.
+            config.setPoolName(name);
+            final HikariDataSource hikari = new HikariDataSource(config);
+            final HikariPoolMBean pool = JMX.newMBeanProxy(ManagementFactory.getPlatformMBeanServer(), objectName("com.zaxxer.hikari:type=Pool (" + name + ")"), HikariPoolMBean.class);
+            return new PooledDataSource(hikari, hikari::close, driverDataSource, poolSize,
+                    () -> new PoolState(pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection()));
+        }
+    },
+    /**
+     * No pool at all: physical connection per operation, shows what pooling saves.
+     */
+    unpooled {
+        @Override
+        PooledDataSource create(final String name, final TimedDataSource driverDataSource, final int poolSize) {
+            return new PooledDataSource(driverDataSource, () -> {
+                //nothing to close.
+            }, driverDataSource, 0, () -> null);
+        }
+    },
+    tomcat {
+        @Override
+        PooledDataSource create(final String name, final TimedDataSource driverDataSource, final int poolSize) {
+            final PoolProperties properties = new PoolProperties();
+            properties.setDataSource(driverDataSource);
+            properties.setName(name);
+            properties.setDefaultAutoCommit(true);
+            properties.setMaxActive(poolSize);
+            properties.setMaxIdle(poolSize);
+            properties.setMinIdle(poolSize);
+            properties.setInitialSize(poolSize);
+            properties.setMaxWait((int) acquireTimeoutMillis);
+            properties.setTestOnBorrow(false);
+            properties.setTestWhileIdle(false);
+            properties.setMaxAge(HOURS.toMillis(1));
+            properties.setJmxEnabled(false);
+            final org.apache.tomcat.jdbc.pool.DataSource tomcat = new org.apache.tomcat.jdbc.pool.DataSource(properties);
+            return new PooledDataSource(tomcat, tomcat::close, driverDataSource, poolSize,
+                    () -> {
+                        final ConnectionPool pool = tomcat.getPool(); //note [DM] null until pool is created on first use.
+                        return pool != null ? new PoolState(pool.getActive(), pool.getIdle(), pool.getWaitCount()) : null;
+                    });
+        }
+    },
+    dbcp2 {
+        @Override
+        PooledDataSource create(final String name, final TimedDataSource driverDataSource, final int poolSize) {
+            final PoolableConnectionFactory factory = new PoolableConnectionFactory(new DataSourceConnectionFactory(driverDataSource), null);
+            factory.setDefaultAutoCommit(true);
+            factory.setMaxConnLifetimeMillis(HOURS.toMillis(1));
+            final GenericObjectPool<PoolableConnection> pool = new GenericObjectPool<>(factory);
+            pool.setMaxTotal(poolSize);
+            pool.setMaxIdle(poolSize);
+            pool.setMinIdle(poolSize);
+            pool.setMaxWait(Duration.ofMillis(acquireTimeoutMillis));
+            pool.setTestOnBorrow(false);
+            factory.setPool(pool);
+            try {
+                pool.preparePool(); //note [DM] other pools open connections up front too.
+            } catch (final Exception oops) {
+                throw new IllegalStateException("Failed to open " + name, oops);
+            }
+            return new PooledDataSource(new PoolingDataSource<>(pool), pool::close, driverDataSource, poolSize,
+                    () -> new PoolState(pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters()));
+        }
+    };
+
+    private static final long acquireTimeoutMillis = TimeUnit.SECONDS.toMillis(1);
+    private static final AtomicInteger poolSequence = new AtomicInteger();
+
+    /**
+     * @param name prefix of pool name, it is made unique (pools are registered in JMX by name).
+     */
+    PooledDataSource create(final String name, final DataSource driverDataSource, final int poolSize) {
+        //note [DM] pool opens physical connections through that wrapper, so connect time is recorded.
+        return create(name + "-" + poolSequence.incrementAndGet(), new TimedDataSource(driverDataSource), poolSize);
+    }
+
+    abstract PooledDataSource create(String name, TimedDataSource driverDataSource, int poolSize);
+
+    private static ObjectName objectName(final String name) {
+        try {
+            return new ObjectName(name);
+        } catch (final MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.hobotometr.db;
+
+/**
+ * Instant state of connection pool: tells pool starvation (clients waiting, no idle connections)
+ * apart from slow server (all connections active, nobody waits).
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 10:40 PM
+ */
+public final class PoolState {
+    private final int active;
+    private final int idle;
+    private final int waiting;
+
+    public PoolState(final int active, final int idle, final int waiting) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+    }
+
+    /**
+     * @return connections borrowed by clients.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return clients blocked waiting for a connection.
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+}
@@ -0,0 +1,87 @@
+package org.hobotometr.db;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Data source of some pool implementation together with a way to shut the pool down and to look inside.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 07:40 PM
+ */
+class PooledDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final AutoCloseable pool;
+    private final TimedDataSource driverDataSource;
+    private final int poolSize;
+    private final Supplier<PoolState> poolState;
+
+    /**
+     * @param driverDataSource physical connections are opened by pool through it.
+     * @param poolSize         connections kept by pool, 0 when pool keeps none.
+     * @param poolState        returns null when pool does not track its state.
+     */
+    PooledDataSource(final DataSource dataSource, final AutoCloseable pool,
+                     final TimedDataSource driverDataSource, final int poolSize, final Supplier<PoolState> poolState) {
+        super(dataSource);
+        this.pool = pool;
+        this.driverDataSource = driverDataSource;
+        this.poolSize = poolSize;
+        this.poolState = poolState;
+    }
+
+    /**
+     * @return physical connections which failed to open since pool creation.
+     */
+    long getConnectFailures() {
+        return driverDataSource.getFailures();
+    }
+
+    /**
+     * Borrow all connections at once, so pool has to open missing ones, and give them back.
+     */
+    void prefill() {
+        final List<Connection> connections = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                connections.add(getConnection());
+            }
+        } catch (final SQLException oops) {
+            throw new IllegalStateException("Failed to prefill pool", oops);
+        } finally {
+            for (final Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (final SQLException ignore) {
+                    //connection is broken, pool replaces it.
+                }
+            }
+        }
+    }
+
+    PoolState getPoolState() {
+        return poolState.get();
+    }
+
+    /**
+     * @return time of opening physical connections (microseconds) since previous call.
+     */
+    Histogram getIntervalConnectTime() {
+        return driverDataSource.getIntervalAcquireTime();
+    }
+
+    @Override
+    public void close() {
+        try {
+            pool.close();
+        } catch (final Exception oops) {
+            throw new IllegalStateException("Failed to close pool", oops);
+        }
+    }
+}
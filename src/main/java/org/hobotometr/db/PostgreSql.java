@@ -1,14 +1,36 @@
 package org.hobotometr.db;
 
-import com.zaxxer.hikari.HikariDataSource;
+import com.google.common.base.Joiner;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author dmitry.mamonov
  *         Created: 2014-09-14 12:25 AM
  */
 class PostgreSql extends AbstractSqlDatabase {
-    protected PostgreSql(final HikariDataSource hikariDataSource) {
-        super(hikariDataSource);
+    private static final Map<Integer, String> insertBatchSql = new ConcurrentHashMap<>();
+    private static final Map<Integer, String> updateTinyBatchSql = new ConcurrentHashMap<>();
+
+    protected PostgreSql(final PooledDataSource dataSource, final PoolOptions options) {
+        super(dataSource, options);
+    }
+
+    @Override
+    protected Class<?> physicalConnectionClass() {
+        return PGConnection.class;
+    }
+
+    @Override
+    public long countServerConnections() {
+        return sql.queryForObject("SELECT COUNT(*) FROM pg_stat_activity WHERE datname = current_database()", Long.class);
     }
 
     @Override
@@ -31,4 +53,75 @@ class PostgreSql extends AbstractSqlDatabase {
             }
         }
     }
+
+    /**
+     * Stream rows with COPY FROM STDIN.
+     */
+    @Override
+    public void bulkLoad(final long rows) {
+        sql.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY hikari (title, val) FROM STDIN", new GeneratedRowsInputStream(rows), 1 << 16);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Single multi-row INSERT statement.
+     */
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final Object[] args = new Object[batchSize * 2];
+            for (int i = 0; i < batchSize; i++) {
+                args[i * 2] = Payloads.titlePart();
+                args[i * 2 + 1] = Payloads.value();
+            }
+            sql.update(insertBatchSql.computeIfAbsent(batchSize, size ->
+                    "INSERT INTO hikari (title, val) VALUES " + repeatValues("(repeat(?, 64), ?)", size) + ";"), args);
+            return true;
+        } catch (final RuntimeException re) {
+            return false;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    /**
+     * Single UPDATE statement joined with multi-row VALUES list of sorted distinct ids.
+     * List is padded with copies of last row up to batch size (same row joined twice is updated once),
+     * so statement text depends on batch size only.
+     */
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        final long startNanos = System.nanoTime();
+        try {
+            final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+            final Object[] args = new Object[batchSize * 2];
+            for (int i = 0; i < batchSize; i++) {
+                if (i < ids.length) {
+                    args[i * 2] = ids[i];
+                    args[i * 2 + 1] = Payloads.value();
+                } else {
+                    args[i * 2] = args[i * 2 - 2];
+                    args[i * 2 + 1] = args[i * 2 - 1];
+                }
+            }
+            sql.update(updateTinyBatchSql.computeIfAbsent(batchSize, size ->
+                    "UPDATE hikari SET val=v.val FROM (VALUES " + repeatValues("(?::INTEGER, ?::INTEGER)", size) + ") AS v(id, val) WHERE hikari.id=v.id;"), args);
+            return ids.length;
+        } catch (final RuntimeException re) {
+            return -1;
+        } finally {
+            recordQueryTime(startNanos);
+        }
+    }
+
+    private static String repeatValues(final String values, final int size) {
+        return Joiner.on(", ").join(Collections.nCopies(size, values));
+    }
 }
@@ -0,0 +1,216 @@
+package org.hobotometr.db;
+
+import com.google.common.net.HostAndPort;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * PostgreSQL over non-blocking vert.x client: connections are served by event loops,
+ * each connection pipelines up to in flight limit queries (see {@link PoolOptions#getAsyncInFlight()}).
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 08:30 PM
+ */
+class PostgreSqlAsync extends AbstractDatabase implements AsyncDatabase {
+    private static final String insertSql = "INSERT INTO hikari (title, val) VALUES (repeat($1, 64), $2)";
+    private static final String updateTinySql = "UPDATE hikari SET val=$1 WHERE id=$2";
+    private static final String updateWideSql = "UPDATE hikari SET title=repeat($1, 64) WHERE id=$2";
+    private static final String selectCpuLiteSql = "SELECT val FROM hikari WHERE id=$1";
+    private static final String selectCpuHeavySql = "SELECT avg(val) FROM hikari WHERE id BETWEEN $1 AND $2";
+    private static final int bulkLoadChunk = 10_000;
+
+    private final Vertx vertx;
+    private final SqlClient pool;
+
+    /**
+     * Pipelining is enabled by pool client only ({@link PgPool#client}), plain {@link PgPool#pool} leases connection per query.
+     * Wait queue holds at most one more round of pipelines, overload beyond it fails operations (counted as errors).
+     */
+    PostgreSqlAsync(final String host, final String user, final String password, final int poolSize, final PoolOptions options) {
+        this.vertx = Vertx.vertx(new VertxOptions()
+                .setEventLoopPoolSize(Math.min(poolSize, Runtime.getRuntime().availableProcessors())));
+        final int inFlight = Math.max(1, options.getAsyncInFlight());
+        this.pool = PgPool.client(vertx,
+                new PgConnectOptions()
+                        .setHost(HostAndPort.fromString(host).getHostText())
+                        .setPort(HostAndPort.fromString(host).getPortOrDefault(5432))
+                        .setDatabase("demo")
+                        .setUser(user)
+                        .setPassword(password)
+                        .setCachePreparedStatements(options.getStatementCaching() != StatementCaching.none)
+                        .setPipeliningLimit(inFlight),
+                new io.vertx.sqlclient.PoolOptions()
+                        .setMaxSize(poolSize)
+                        .setMaxWaitQueueSize(poolSize * inFlight));
+    }
+
+    @Override
+    public void init() {
+        pool.query("CREATE TABLE IF NOT EXISTS hikari (\n" +
+                "  id SERIAL NOT NULL PRIMARY KEY,\n" +
+                "  title TEXT NULL,\n" +
+                "  val INTEGER NOT NULL DEFAULT 0\n" +
+                ");").execute().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Override
+    public long countRows(final int idTo) {
+        return pool.preparedQuery("SELECT COUNT(*) FROM hikari WHERE id BETWEEN 1 AND $1")
+                .execute(Tuple.of(idTo))
+                .map(rows -> rows.iterator().next().getLong(0))
+                .toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        pool.preparedQuery(updateTinySql).execute(Tuple.of(value, id)).toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        return pool.preparedQuery("SELECT val FROM hikari WHERE id = $1")
+                .execute(Tuple.of(id))
+                .map(rows -> rows.size() > 0 ? rows.iterator().next().getInteger(0) : -1)
+                .toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Override
+    public long countServerConnections() {
+        return pool.query("SELECT COUNT(*) FROM pg_stat_activity WHERE datname = current_database()")
+                .execute()
+                .map(rows -> rows.iterator().next().getLong(0))
+                .toCompletionStage().toCompletableFuture().join();
+    }
+
+    /**
+     * Batches of {@link #bulkLoadChunk} inserts, each batch is pipelined over one connection.
+     */
+    @Override
+    public void bulkLoad(final long rows) {
+        for (long loaded = 0; loaded < rows; ) {
+            final int chunk = (int) Math.min(bulkLoadChunk, rows - loaded);
+            pool.preparedQuery(insertSql).executeBatch(insertArgs(chunk)).toCompletionStage().toCompletableFuture().join();
+            loaded += chunk;
+        }
+    }
+
+    private static List<Tuple> insertArgs(final int rows) {
+        final List<Tuple> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(Tuple.of(Payloads.titlePart(), Payloads.value()));
+        }
+        return batch;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> insertAsync() {
+        return execute(insertSql, Tuple.of(Payloads.titlePart(), Payloads.value()), rows -> true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateTinyColumnByIdAsync(final int rangeFrom, final int rangeTo) {
+        return execute(updateTinySql, Tuple.of(Payloads.value(), keys.nextId(rangeFrom, rangeTo)), rows -> true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateWideColumnByIdAsync(final int rangeFrom, final int rangeTo) {
+        return execute(updateWideSql, Tuple.of(Payloads.titlePart(), keys.nextId(rangeFrom, rangeTo)), rows -> true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> selectCpuLiteAsync(final int rangeFrom, final int rangeTo) {
+        return execute(selectCpuLiteSql, Tuple.of(keys.nextId(rangeFrom, rangeTo)), rows -> rows.size() > 0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> selectCpuHeavyAsync(final int rangeFrom, final int rangeTo, final int size) {
+        final int start = keys.nextId(rangeFrom, rangeTo - size);
+        final int end = start + size;
+        return execute(selectCpuHeavySql, Tuple.of(start, end), rows -> rows.size() > 0);
+    }
+
+    private CompletableFuture<Boolean> execute(final String sql, final Tuple args, final Function<RowSet<Row>, Boolean> success) {
+        final Future<RowSet<Row>> result = pool.preparedQuery(sql).execute(args);
+        return result.map(success::apply)
+                .otherwise(false)
+                .toCompletionStage().toCompletableFuture();
+    }
+
+    @Override
+    public boolean insert() {
+        return insertAsync().join();
+    }
+
+    @Override
+    public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        return updateTinyColumnByIdAsync(rangeFrom, rangeTo).join();
+    }
+
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        return executeBatch(insertSql, insertArgs(batchSize));
+    }
+
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+        final List<Tuple> batch = new ArrayList<>(ids.length);
+        for (final int id : ids) {
+            batch.add(Tuple.of(Payloads.value(), id));
+        }
+        return executeBatch(updateTinySql, batch) ? ids.length : -1;
+    }
+
+    /**
+     * Statement executions of batch are pipelined over one connection.
+     */
+    private boolean executeBatch(final String sql, final List<Tuple> batch) {
+        return pool.preparedQuery(sql).executeBatch(batch)
+                .map(rows -> true)
+                .otherwise(false)
+                .toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Override
+    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        return updateWideColumnByIdAsync(rangeFrom, rangeTo).join();
+    }
+
+    @Override
+    public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        return selectCpuLiteAsync(rangeFrom, rangeTo).join();
+    }
+
+    @Override
+    public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        return selectCpuHeavyAsync(rangeFrom, rangeTo, size).join();
+    }
+
+    /**
+     * Scans are measured over blocking JDBC only (cursor fetch size is JDBC specific), async specs with scans are rejected.
+     *
+     * @return null (error).
+     */
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        pool.close().toCompletionStage().toCompletableFuture().join();
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+}
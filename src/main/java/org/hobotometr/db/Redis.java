@@ -0,0 +1,365 @@
+package org.hobotometr.db;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.support.ConnectionPoolSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Rows are hashes hikari:&lt;id&gt; with fields title and val, ids come from INCR of hikari:seq.
+ * <ul>
+ * <li>{@link RedisMode#pooled}: each operation borrows exclusive connection;</li>
+ * <li>{@link RedisMode#multiplexed}: operations share connections, concurrent commands are pipelined by client;</li>
+ * <li>pipeline depth N: each single row operation sends N commands (different rows) per round trip.</li>
+ * </ul>
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 07:05 PM
+ */
+class Redis extends AbstractDatabase {
+    private static final long highestTrackableMicros = TimeUnit.MINUTES.toMicros(1);
+    private static final long timeoutMillis = TimeUnit.SECONDS.toMillis(1);
+    private static final int bulkLoadChunk = 10_000;
+    private static final String sequenceKey = "hikari:seq";
+    private static final String avgScript = "" +
+            "local sum = 0\n" +
+            "local count = 0\n" +
+            "for id = tonumber(ARGV[1]), tonumber(ARGV[2]) do\n" +
+            "  local val = redis.call('HGET', 'hikari:' .. id, 'val')\n" +
+            "  if val then\n" +
+            "    sum = sum + tonumber(val)\n" +
+            "    count = count + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "if count == 0 then return 0 end\n" +
+            "return math.floor(sum / count)";
+
+    private final RedisClient client;
+    private final RedisMode mode;
+    private final int pipelineDepth;
+    private final GenericObjectPool<StatefulRedisConnection<String, String>> pool;
+    private final List<StatefulRedisConnection<String, String>> shared = new ArrayList<>();
+    private final Recorder borrowTime = new Recorder(highestTrackableMicros, 3);
+    private Histogram intervalBorrowTime; //note [DM] accessed by sampler thread only.
+    private volatile String avgScriptDigest;
+
+    Redis(final RedisClient client, final int poolSize, final PoolOptions options) {
+        this.client = client;
+        this.mode = options.getRedisMode();
+        this.pipelineDepth = options.getPipelineDepth();
+        if (mode == RedisMode.pooled) {
+            final GenericObjectPoolConfig<StatefulRedisConnection<String, String>> config = new GenericObjectPoolConfig<>();
+            config.setMaxTotal(poolSize);
+            config.setMaxIdle(poolSize);
+            config.setMaxWait(Duration.ofMillis(timeoutMillis));
+            this.pool = ConnectionPoolSupport.createGenericObjectPool(client::connect, config);
+        } else {
+            this.pool = null;
+            for (int i = 0; i < poolSize; i++) {
+                shared.add(client.connect());
+            }
+        }
+    }
+
+    @Override
+    public void init() {
+        avgScriptDigest = execute(connection -> connection.sync().scriptLoad(avgScript));
+    }
+
+    @Override
+    public long countRows(final int idTo) {
+        return execute(connection -> {
+            long count = 0;
+            for (int from = 1; from <= idTo; from += bulkLoadChunk) {
+                final String[] keys = new String[Math.min(bulkLoadChunk, idTo - from + 1)];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = key(from + i);
+                }
+                count += connection.sync().exists(keys);
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Reserve ids with INCRBY, then pipeline HSETs in chunks of {@link #bulkLoadChunk}.
+     */
+    @Override
+    public void bulkLoad(final long rows) {
+        execute(connection -> {
+            final long lastId = connection.sync().incrby(sequenceKey, rows);
+            final RedisAsyncCommands<String, String> async = connection.async();
+            connection.setAutoFlushCommands(false);
+            try {
+                final List<RedisFuture<?>> chunk = new ArrayList<>(bulkLoadChunk);
+                for (long id = lastId - rows + 1; id <= lastId; id++) {
+                    chunk.add(async.hset(key(id), row(Payloads.wideTitle(), Payloads.value())));
+                    if (chunk.size() == bulkLoadChunk || id == lastId) {
+                        connection.flushCommands();
+                        checkState(LettuceFutures.awaitAll(TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS, chunk.toArray(new RedisFuture<?>[chunk.size()])),
+                                "Bulk load timeout");
+                        chunk.clear();
+                    }
+                }
+            } finally {
+                connection.setAutoFlushCommands(true);
+            }
+            return lastId;
+        });
+    }
+
+    @Override
+    public boolean insert() {
+        return insertRows(pipelineDepth);
+    }
+
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        return insertRows(batchSize);
+    }
+
+    private boolean insertRows(final int rows) {
+        try {
+            return execute(connection -> {
+                final long lastId = connection.sync().incrby(sequenceKey, rows);
+                return pipeline(connection, rows, (async, i) -> async.hset(key(lastId - i), row(Payloads.wideTitle(), Payloads.value())));
+            });
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        execute(connection -> connection.sync().hset(key(id), "val", Integer.toString(value)));
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        final String value = execute(connection -> connection.sync().hget(key(id), "val"));
+        return value != null ? Integer.parseInt(value) : -1;
+    }
+
+    @Override
+    public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        return updateTinyRows(rangeFrom, rangeTo, pipelineDepth);
+    }
+
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        try {
+            final int[] ids = keys.nextDistinctIds(rangeFrom, rangeTo, batchSize);
+            return execute(connection -> pipeline(connection, ids.length,
+                    (async, i) -> async.hset(key(ids[i]), "val", Integer.toString(Payloads.value())))) ? ids.length : -1;
+        } catch (final RuntimeException re) {
+            return -1;
+        }
+    }
+
+    private boolean updateTinyRows(final int rangeFrom, final int rangeTo, final int rows) {
+        try {
+            return execute(connection -> pipeline(connection, rows,
+                    (async, i) -> async.hset(key(keys.nextId(rangeFrom, rangeTo)), "val", Integer.toString(Payloads.value()))));
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        try {
+            return execute(connection -> pipeline(connection, pipelineDepth,
+                    (async, i) -> async.hset(key(keys.nextId(rangeFrom, rangeTo)), "title", Payloads.wideTitle())));
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        try {
+            return execute(connection -> pipeline(connection, pipelineDepth,
+                    (async, i) -> async.hget(key(keys.nextId(rangeFrom, rangeTo)), "val")));
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    /**
+     * Server side aggregation over id range with Lua script (one round trip, like SQL avg()).
+     */
+    @Override
+    public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        try {
+            final int start = keys.nextId(rangeFrom, rangeTo - size);
+            final int end = start + size;
+            return execute(connection -> {
+                try {
+                    connection.sync().evalsha(avgScriptDigest, ScriptOutputType.INTEGER, new String[0], Integer.toString(start), Integer.toString(end));
+                } catch (final RedisNoScriptException flushed) {
+                    avgScriptDigest = connection.sync().scriptLoad(avgScript);
+                    connection.sync().evalsha(avgScriptDigest, ScriptOutputType.INTEGER, new String[0], Integer.toString(start), Integer.toString(end));
+                }
+                return true;
+            });
+        } catch (final RuntimeException re) {
+            return false;
+        }
+    }
+
+    /**
+     * Hashes have no ordered secondary index (top by val) and no cursor over id range, so there is no equivalent scan
+     * (specs with scans are rejected, see {@link DatabaseType#hasRangeScan()}).
+     *
+     * @return null (error).
+     */
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        return null;
+    }
+
+    @Override
+    public Histogram getIntervalPoolWait() {
+        if (pool == null) {
+            return null;
+        }
+        intervalBorrowTime = borrowTime.getIntervalHistogram(intervalBorrowTime);
+        return intervalBorrowTime;
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        return pool != null ? new PoolState(pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters()) : null;
+    }
+
+    @Override
+    public long countServerConnections() {
+        final String info = execute(connection -> connection.sync().info("clients"));
+        for (final String line : Splitter.on('\n').trimResults().split(info)) {
+            if (line.startsWith("connected_clients:")) {
+                return Long.parseLong(line.substring("connected_clients:".length()));
+            }
+        }
+        throw new IllegalStateException("No connected_clients in redis info: " + info);
+    }
+
+    @Override
+    public void prefill() {
+        if (pool != null) { //note [DM] shared connections are opened in constructor.
+            try {
+                pool.addObjects(pool.getMaxTotal() - pool.getNumActive() - pool.getNumIdle());
+            } catch (final Exception oops) {
+                throw new IllegalStateException("Failed to prefill pool", oops);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+        for (final StatefulRedisConnection<String, String> connection : shared) {
+            connection.close();
+        }
+        client.shutdown();
+    }
+
+    private <T> T execute(final ConnectionWork<T> work) {
+        if (pool == null) {
+            //note [DM] stable thread to connection affinity spreads clients evenly over connections.
+            return work.execute(shared.get((int) (Thread.currentThread().getId() % shared.size())));
+        }
+        final StatefulRedisConnection<String, String> connection;
+        final long startNanos = System.nanoTime();
+        try {
+            connection = pool.borrowObject();
+        } catch (final Exception oops) {
+            throw new IllegalStateException("Failed to borrow redis connection", oops);
+        } finally {
+            borrowTime.recordValue(Math.min(highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+        }
+        try {
+            return work.execute(connection);
+        } finally {
+            pool.returnObject(connection);
+        }
+    }
+
+    /**
+     * Send given amount of commands in one round trip and wait for all replies.
+     * Exclusive (pooled) connection also sends them in one write.
+     *
+     * @return true if all commands succeeded (and returned non null value).
+     */
+    private boolean pipeline(final StatefulRedisConnection<String, String> connection, final int commands, final CommandFactory factory) {
+        final RedisAsyncCommands<String, String> async = connection.async();
+        if (commands == 1) {
+            return await(factory.send(async, 0));
+        }
+        final RedisFuture<?>[] futures = new RedisFuture<?>[commands];
+        final boolean exclusive = pool != null;
+        if (exclusive) {
+            connection.setAutoFlushCommands(false);
+        }
+        try {
+            for (int i = 0; i < commands; i++) {
+                futures[i] = factory.send(async, i);
+            }
+            if (exclusive) {
+                connection.flushCommands();
+            }
+        } finally {
+            if (exclusive) {
+                connection.setAutoFlushCommands(true);
+            }
+        }
+        boolean success = true;
+        for (final RedisFuture<?> future : futures) {
+            success &= await(future);
+        }
+        return success;
+    }
+
+    private static boolean await(final RedisFuture<?> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS) != null;
+        } catch (final Exception oops) {
+            future.cancel(true);
+            return false;
+        }
+    }
+
+    private static String key(final long id) {
+        return "hikari:" + id;
+    }
+
+    private static ImmutableMap<String, String> row(final String title, final int val) {
+        return ImmutableMap.of("title", title, "val", Integer.toString(val));
+    }
+
+    private interface ConnectionWork<T> {
+        T execute(StatefulRedisConnection<String, String> connection);
+    }
+
+    private interface CommandFactory {
+        RedisFuture<?> send(RedisAsyncCommands<String, String> async, int index);
+    }
+}
@@ -0,0 +1,18 @@
+package org.hobotometr.db;
+
+/**
+ * How Redis load clients share connections.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 06:55 PM
+ */
+public enum RedisMode {
+    /**
+     * Each operation borrows exclusive connection from pool (request/response, like JDBC).
+     */
+    pooled,
+    /**
+     * All clients share pool size connections without borrowing, concurrent commands are pipelined on the wire.
+     */
+    multiplexed
+}
@@ -0,0 +1,74 @@
+package org.hobotometr.db;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How reads are spread over replica pools, see {@link RoutingDatabase}.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 01:25 AM
+ */
+public enum ReplicaBalancing {
+    /**
+     * No routing: reads and writes go to primary host.
+     */
+    none {
+        @Override
+        RoutingDatabase.Replica choose(final List<RoutingDatabase.Replica> replicas, final int sequence) {
+            return null;
+        }
+    },
+    roundRobin {
+        @Override
+        RoutingDatabase.Replica choose(final List<RoutingDatabase.Replica> replicas, final int sequence) {
+            return replicas.get(Math.floorMod(sequence, replicas.size()));
+        }
+    },
+    /**
+     * Replica with least operations in flight, ties are broken round robin.
+     */
+    leastOutstanding {
+        @Override
+        RoutingDatabase.Replica choose(final List<RoutingDatabase.Replica> replicas, final int sequence) {
+            RoutingDatabase.Replica best = null;
+            for (int i = 0; i < replicas.size(); i++) {
+                final RoutingDatabase.Replica replica = replicas.get(Math.floorMod(sequence + i, replicas.size()));
+                if (best == null || replica.getOutstanding() < best.getOutstanding()) {
+                    best = replica;
+                }
+            }
+            return best;
+        }
+    },
+    /**
+     * Random replica with probability inverse to its recent (moving average) read latency.
+     */
+    latencyWeighted {
+        @Override
+        RoutingDatabase.Replica choose(final List<RoutingDatabase.Replica> replicas, final int sequence) {
+            double total = 0;
+            for (final RoutingDatabase.Replica replica : replicas) {
+                total += weight(replica);
+            }
+            double point = ThreadLocalRandom.current().nextDouble(total);
+            for (final RoutingDatabase.Replica replica : replicas) {
+                point -= weight(replica);
+                if (point < 0) {
+                    return replica;
+                }
+            }
+            return replicas.get(replicas.size() - 1);
+        }
+
+        private double weight(final RoutingDatabase.Replica replica) {
+            return 1.0 / Math.max(1.0, replica.getAverageMicros());
+        }
+    };
+
+    /**
+     * @param sequence grows by one with each read.
+     * @return replica to read from, or null to read from primary.
+     */
+    abstract RoutingDatabase.Replica choose(List<RoutingDatabase.Replica> replicas, int sequence);
+}
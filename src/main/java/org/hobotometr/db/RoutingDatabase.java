@@ -0,0 +1,316 @@
+package org.hobotometr.db;
+
+import com.google.common.collect.ImmutableList;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Read/write split: writes go to primary pool, reads are spread over replica pools by {@link ReplicaBalancing}
+ * ({@link ReplicaBalancing#none} reads from primary too).
+ * Pools are owned by caller, router only counts operations per host.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 01:35 AM
+ */
+public class RoutingDatabase implements Database {
+    private static final double averageWeight = 0.1;
+
+    private final ReplicaBalancing balancing;
+    private final String primaryHost;
+    private final Database primary;
+    private final LongAdder primaryOps = new LongAdder();
+    private final List<Replica> replicas;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private Histogram intervalPoolWait; //note [DM] interval histograms are accessed by sampler thread only.
+    private Histogram intervalQueryTime;
+    private Histogram intervalConnectTime;
+
+    public RoutingDatabase(final ReplicaBalancing balancing, final String primaryHost, final Database primary,
+                           final List<String> replicaHosts, final List<Database> replicaDatabases) {
+        checkArgument((balancing == ReplicaBalancing.none || !replicaHosts.isEmpty()) && replicaHosts.size() == replicaDatabases.size(),
+                "Invalid routing: %s over %s", balancing, replicaHosts);
+        this.balancing = balancing;
+        this.primaryHost = primaryHost;
+        this.primary = primary;
+        final ImmutableList.Builder<Replica> replicas = ImmutableList.builder();
+        for (int i = 0; i < replicaHosts.size(); i++) {
+            replicas.add(new Replica(replicaHosts.get(i), replicaDatabases.get(i)));
+        }
+        this.replicas = replicas.build();
+    }
+
+    public Database getPrimary() {
+        return primary;
+    }
+
+    public List<Database> getReplicas() {
+        final ImmutableList.Builder<Database> databases = ImmutableList.builder();
+        for (final Replica replica : replicas) {
+            databases.add(replica.database);
+        }
+        return databases.build();
+    }
+
+    /**
+     * @return primary host followed by replica hosts, in order of {@link #takeIntervalOps()}.
+     */
+    public List<String> getHosts() {
+        final ImmutableList.Builder<String> hosts = ImmutableList.<String>builder().add(primaryHost);
+        for (final Replica replica : replicas) {
+            hosts.add(replica.host);
+        }
+        return hosts.build();
+    }
+
+    /**
+     * @return operations (successful or not) sent to each of {@link #getHosts()} since previous call.
+     */
+    public long[] takeIntervalOps() {
+        final long[] ops = new long[1 + replicas.size()];
+        ops[0] = primaryOps.sumThenReset();
+        for (int i = 0; i < replicas.size(); i++) {
+            ops[i + 1] = replicas.get(i).ops.sumThenReset();
+        }
+        return ops;
+    }
+
+    private boolean read(final Function<Database, Boolean> operation) {
+        final Replica replica = balancing.choose(replicas, sequence.getAndIncrement());
+        if (replica == null) {
+            return write(operation);
+        }
+        replica.outstanding.incrementAndGet();
+        final long startNanos = System.nanoTime();
+        try {
+            return operation.apply(replica.database);
+        } finally {
+            replica.outstanding.decrementAndGet();
+            replica.ops.increment();
+            replica.recordMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+
+    private boolean write(final Function<Database, Boolean> operation) {
+        primaryOps.increment();
+        return operation.apply(primary);
+    }
+
+    @Override
+    public boolean selectCpuLite(final int rangeFrom, final int rangeTo) {
+        return read(database -> database.selectCpuLite(rangeFrom, rangeTo));
+    }
+
+    @Override
+    public boolean selectCpuHeavy(final int rangeFrom, final int rangeTo, final int size) {
+        return read(database -> database.selectCpuHeavy(rangeFrom, rangeTo, size));
+    }
+
+    @Override
+    public ScanResult scan(final ScanQuery query, final int rangeFrom, final int rangeTo, final int size, final int fetchSize) {
+        final ScanResult[] result = new ScanResult[1];
+        read(database -> {
+            result[0] = database.scan(query, rangeFrom, rangeTo, size, fetchSize);
+            return result[0] != null;
+        });
+        return result[0];
+    }
+
+    @Override
+    public int selectValue(final int id) {
+        final int[] value = new int[1];
+        read(database -> {
+            value[0] = database.selectValue(id);
+            return true;
+        });
+        return value[0];
+    }
+
+    @Override
+    public boolean insert() {
+        return write(Database::insert);
+    }
+
+    @Override
+    public boolean updateTinyColumnById(final int rangeFrom, final int rangeTo) {
+        return write(database -> database.updateTinyColumnById(rangeFrom, rangeTo));
+    }
+
+    @Override
+    public boolean insertBatch(final int batchSize) {
+        return write(database -> database.insertBatch(batchSize));
+    }
+
+    @Override
+    public int updateTinyColumnByIdBatch(final int rangeFrom, final int rangeTo, final int batchSize) {
+        primaryOps.increment();
+        return primary.updateTinyColumnByIdBatch(rangeFrom, rangeTo, batchSize);
+    }
+
+    @Override
+    public boolean updateWideColumnById(final int rangeFrom, final int rangeTo) {
+        return write(database -> database.updateWideColumnById(rangeFrom, rangeTo));
+    }
+
+    @Override
+    public void updateValue(final int id, final int value) {
+        write(database -> {
+            database.updateValue(id, value);
+            return true;
+        });
+    }
+
+    @Override
+    public void init() {
+        primary.init(); //note [DM] schema is replicated.
+    }
+
+    @Override
+    public void setKeyDistribution(final KeyDistribution keys) {
+        primary.setKeyDistribution(keys);
+        for (final Replica replica : replicas) {
+            replica.database.setKeyDistribution(keys);
+        }
+    }
+
+    @Override
+    public long countRows(final int idTo) {
+        return primary.countRows(idTo);
+    }
+
+    @Override
+    public void bulkLoad(final long rows) {
+        primary.bulkLoad(rows);
+    }
+
+    @Override
+    public Histogram getIntervalPoolWait() {
+        intervalPoolWait = merge(intervalPoolWait, Database::getIntervalPoolWait);
+        return intervalPoolWait;
+    }
+
+    @Override
+    public Histogram getIntervalQueryTime() {
+        intervalQueryTime = merge(intervalQueryTime, Database::getIntervalQueryTime);
+        return intervalQueryTime;
+    }
+
+    @Override
+    public Histogram getIntervalConnectTime() {
+        intervalConnectTime = merge(intervalConnectTime, Database::getIntervalConnectTime);
+        return intervalConnectTime;
+    }
+
+    /**
+     * @return sum over all pools, null when none of them tracks given histogram.
+     */
+    private Histogram merge(final Histogram reused, final Function<Database, Histogram> intervalHistogram) {
+        final Histogram target = reused != null ? reused : new Histogram(3);
+        target.reset();
+        boolean tracked = false;
+        for (final Database database : databases()) {
+            final Histogram interval = intervalHistogram.apply(database);
+            if (interval != null) {
+                target.add(interval);
+                tracked = true;
+            }
+        }
+        return tracked ? target : null;
+    }
+
+    @Override
+    public PoolState getPoolState() {
+        PoolState total = null;
+        for (final Database database : databases()) {
+            final PoolState state = database.getPoolState();
+            if (state != null) {
+                total = total == null ? state : new PoolState(total.getActive() + state.getActive(),
+                        total.getIdle() + state.getIdle(), total.getWaiting() + state.getWaiting());
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void prefill() {
+        for (final Database database : databases()) {
+            database.prefill();
+        }
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return sum(Database::getConnectFailures);
+    }
+
+    @Override
+    public long countServerConnections() {
+        return sum(Database::countServerConnections);
+    }
+
+    private long sum(final ToLongFunction<Database> counter) {
+        long total = -1;
+        for (final Database database : databases()) {
+            final long count = counter.applyAsLong(database);
+            if (count >= 0) {
+                total = Math.max(0, total) + count;
+            }
+        }
+        return total;
+    }
+
+    private List<Database> databases() {
+        final ImmutableList.Builder<Database> databases = ImmutableList.<Database>builder().add(primary);
+        for (final Replica replica : replicas) {
+            databases.add(replica.database);
+        }
+        return databases.build();
+    }
+
+    /**
+     * Closes all pools, unless caller closes them on its own.
+     */
+    @Override
+    public void close() {
+        for (final Database database : databases()) {
+            database.close();
+        }
+    }
+
+    static final class Replica {
+        private final String host;
+        private final Database database;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final LongAdder ops = new LongAdder();
+        private volatile double averageMicros = 0;
+
+        private Replica(final String host, final Database database) {
+            this.host = host;
+            this.database = database;
+        }
+
+        int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * @return exponential moving average of read latency, 0 before first read.
+         */
+        double getAverageMicros() {
+            return averageMicros;
+        }
+
+        private void recordMicros(final long micros) {
+            //note [DM] racy update loses some samples under contention, fine for a moving average.
+            final double average = averageMicros;
+            averageMicros = average == 0 ? micros : average + (micros - average) * averageWeight;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.hobotometr.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In-process cache of row values by id (bounded, W-TinyLFU eviction), shared by {@link CachingDatabase} of
+ * read and write pools, so writes invalidate rows cached by reads.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 02:25 AM
+ */
+public class RowCache {
+    final Cache<Integer, Integer> rows;
+    final CacheWrites writes;
+    private CacheStats lastStats = CacheStats.empty(); //note [DM] accessed by sampler thread only.
+
+    /**
+     * @param ttlSeconds time to live of cached row since it is loaded or written, 0 means no expiration.
+     */
+    public RowCache(final int maxRows, final int ttlSeconds, final CacheWrites writes) {
+        checkArgument(maxRows > 0 && ttlSeconds >= 0, "Invalid cache size/ttl: %s/%s", maxRows, ttlSeconds);
+        final Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxRows)
+                .recordStats();
+        if (ttlSeconds > 0) {
+            builder.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS);
+        }
+        this.rows = builder.build();
+        this.writes = writes;
+    }
+
+    /**
+     * @return hits, misses, evictions since previous call and amount of cached rows.
+     */
+    public long[] sample() {
+        final CacheStats stats = rows.stats();
+        final CacheStats interval = stats.minus(lastStats);
+        lastStats = stats;
+        return new long[]{interval.hitCount(), interval.missCount(), interval.evictionCount(), rows.estimatedSize()};
+    }
+}
@@ -0,0 +1,23 @@
+package org.hobotometr.db;
+
+/**
+ * Shapes of range scans, each one reads rows (id, title, val) of random id range of read size.
+ * SQL and Mongo run equivalent queries, see {@link Database#scan}.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 02:45 AM
+ */
+public enum ScanQuery {
+    /**
+     * Whole range in one query, rows come fetch size at a time (JDBC fetch size over cursor, Mongo batch size).
+     */
+    stream,
+    /**
+     * Whole range page by page, each page is own query continuing after last seen id (ORDER BY id LIMIT fetch size).
+     */
+    keyset,
+    /**
+     * Fetch size rows of range with greatest val (ORDER BY val DESC LIMIT fetch size), whole range is sorted by server.
+     */
+    topN
+}
@@ -0,0 +1,37 @@
+package org.hobotometr.db;
+
+/**
+ * Rows and bytes of values (id, title, val) decoded by client during one scan.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 02:50 AM
+ */
+public final class ScanResult {
+    private long rows = 0;
+    private long bytes = 0;
+    private long lastId = -1;
+
+    ScanResult() {
+    }
+
+    void add(final long id, final String title) {
+        rows++;
+        bytes += Long.BYTES + Integer.BYTES + (title != null ? title.length() : 0); //note [DM] titles are ascii.
+        lastId = id;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return id of last added row, -1 when there were no rows.
+     */
+    long getLastId() {
+        return lastId;
+    }
+}
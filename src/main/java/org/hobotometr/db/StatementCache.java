@@ -0,0 +1,91 @@
+package org.hobotometr.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Per connection cache of prepared hot queries.
+ * Statements are prepared on physical connection (not on pool proxy, which closes them on connection return),
+ * so they live as long as physical connection does. Prepared statements reference their connection, so entries
+ * are dropped explicitly: closed connections are pruned whenever new one shows up (pool rotation, unpooled mode),
+ * and cache is bounded in case connections are abandoned without close.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 03:30 PM
+ */
+class StatementCache {
+    private final JdbcTemplate sql;
+    private final Class<?> physicalConnectionClass;
+    private static final int maxConnections = 1024;
+
+    private final Cache<Connection, PreparedStatement[]> statements = Caffeine.newBuilder().maximumSize(maxConnections).build();
+
+    /**
+     * @param physicalConnectionClass driver specific connection interface, pool proxies unwrap to driver connection by it.
+     */
+    StatementCache(final JdbcTemplate sql, final Class<?> physicalConnectionClass) {
+        this.sql = sql;
+        this.physicalConnectionClass = physicalConnectionClass;
+    }
+
+    int update(final AbstractSqlDatabase.HotQuery query, final Object... args) {
+        return execute(query, args, PreparedStatement::executeUpdate);
+    }
+
+    /**
+     * @return true if query returned at least one row.
+     */
+    boolean query(final AbstractSqlDatabase.HotQuery query, final Object... args) {
+        return execute(query, args, statement -> {
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        });
+    }
+
+    private <T> T execute(final AbstractSqlDatabase.HotQuery query, final Object[] args, final StatementWork<T> work) {
+        try (final Connection connection = sql.getDataSource().getConnection()) {
+            final PreparedStatement statement = prepare((Connection) connection.unwrap(physicalConnectionClass), query);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return work.execute(statement);
+        } catch (final SQLException oops) {
+            throw sql.getExceptionTranslator().translate("cached " + query, query.sql, oops);
+        }
+    }
+
+    private PreparedStatement prepare(final Connection physical, final AbstractSqlDatabase.HotQuery query) throws SQLException {
+        PreparedStatement[] prepared = statements.getIfPresent(physical);
+        if (prepared == null) {
+            pruneClosed();
+            //note [DM] connection is used by single thread at a time, so no race here.
+            prepared = new PreparedStatement[AbstractSqlDatabase.HotQuery.values().length];
+            statements.put(physical, prepared);
+        }
+        PreparedStatement statement = prepared[query.ordinal()];
+        if (statement == null || statement.isClosed()) {
+            statement = physical.prepareStatement(query.sql);
+            prepared[query.ordinal()] = statement;
+        }
+        return statement;
+    }
+
+    private void pruneClosed() throws SQLException {
+        for (final Connection connection : statements.asMap().keySet()) {
+            if (connection.isClosed()) {
+                statements.invalidate(connection); //note [DM] statements were closed by connection.
+            }
+        }
+    }
+
+    private interface StatementWork<T> {
+        T execute(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,22 @@
+package org.hobotometr.db;
+
+/**
+ * How SQL statements are prepared, allows to quantify parse/plan overhead of hot queries.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 03:20 PM
+ */
+public enum StatementCaching {
+    /**
+     * New statement per call (plain JdbcTemplate), driver statement caches are off.
+     */
+    none,
+    /**
+     * Each connection holds own PreparedStatement per hot query, statements are prepared on client side only.
+     */
+    client,
+    /**
+     * Each connection holds own PreparedStatement per hot query, statements are prepared on server.
+     */
+    server
+}
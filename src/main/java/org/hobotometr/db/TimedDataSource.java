@@ -0,0 +1,70 @@
+package org.hobotometr.db;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records time spent in {@link #getConnection()}: waiting for connection when wraps pool,
+ * opening physical connection when wraps driver.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 01:10 PM
+ */
+class TimedDataSource extends DelegatingDataSource {
+    private static final long highestTrackableMicros = TimeUnit.MINUTES.toMicros(1);
+    private final Recorder acquireTime = new Recorder(highestTrackableMicros, 3);
+    private Histogram intervalAcquireTime; //note [DM] accessed by sampler thread only.
+    private final ThreadLocal<long[]> lastAcquireNanos = ThreadLocal.withInitial(() -> new long[1]);
+    private final LongAdder failures = new LongAdder();
+
+    TimedDataSource(final DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long startNanos = System.nanoTime();
+        try {
+            return super.getConnection();
+        } catch (final SQLException | RuntimeException oops) {
+            failures.increment();
+            throw oops;
+        } finally {
+            final long acquireNanos = System.nanoTime() - startNanos;
+            lastAcquireNanos.get()[0] += acquireNanos;
+            acquireTime.recordValue(Math.min(highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(acquireNanos)));
+        }
+    }
+
+    /**
+     * @return amount of failed {@link #getConnection()} calls.
+     */
+    long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return time current thread spent acquiring connections since previous call.
+     */
+    long takeAcquireNanos() {
+        final long[] acquireNanos = lastAcquireNanos.get();
+        final long result = acquireNanos[0];
+        acquireNanos[0] = 0;
+        return result;
+    }
+
+    /**
+     * @return acquire time (microseconds) since previous call, histogram is reused by next call.
+     */
+    Histogram getIntervalAcquireTime() {
+        intervalAcquireTime = acquireTime.getIntervalHistogram(intervalAcquireTime);
+        return intervalAcquireTime;
+    }
+}
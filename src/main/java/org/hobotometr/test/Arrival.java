@@ -0,0 +1,26 @@
+package org.hobotometr.test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of intervals between intended operation starts in rate driven (open loop) tests.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 11:20 AM
+ */
+public enum Arrival {
+    constant {
+        @Override
+        long nextIntervalNanos(final double opsPerSecond) {
+            return (long) (1_000_000_000.0 / opsPerSecond);
+        }
+    },
+    poisson {
+        @Override
+        long nextIntervalNanos(final double opsPerSecond) {
+            return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * 1_000_000_000.0 / opsPerSecond);
+        }
+    };
+
+    abstract long nextIntervalNanos(double opsPerSecond);
+}
@@ -0,0 +1,103 @@
+package org.hobotometr.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Closed loop load over async driver: each client keeps {@code inFlight} operations outstanding,
+ * next operation is issued from completion of previous one, so no thread is blocked per query.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 08:55 PM
+ */
+class AsyncLoad {
+    private final int inFlight;
+    private final AtomicBoolean stop;
+    private final List<Chain> chains = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    AsyncLoad(final int inFlight, final AtomicBoolean stop) {
+        this.inFlight = inFlight;
+        this.stop = stop;
+    }
+
+    /**
+     * Add one client, it issues given operation {@code inFlight} times concurrently.
+     */
+    void addClient(final LoadStats stats, final int rowsPerOp, final Supplier<CompletableFuture<Boolean>> operation) {
+        for (int i = 0; i < inFlight; i++) {
+            chains.add(new Chain(stats.newProbe(), rowsPerOp, operation));
+        }
+    }
+
+    /**
+     * Issue first operation of each chain from a thread of given group: driver threads started on demand
+     * inherit that group, so {@link ClientCpuMeter} accounts them as client threads.
+     */
+    void start(final ThreadGroup group) throws InterruptedException {
+        running.set(chains.size());
+        final Thread starter = new Thread(group, () -> chains.forEach(Chain::next), group.getName() + "-async");
+        starter.start();
+        starter.join();
+    }
+
+    /**
+     * Wait for outstanding operations to complete after stop flag is set.
+     */
+    void awaitStop(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (running.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        if (running.get() > 0) {
+            System.out.println(running.get() + " async operations are still in flight after " + timeoutMillis + "ms");
+        }
+    }
+
+    /**
+     * Sequence of operations, one at a time, so probe has single writer (completion threads differ,
+     * but each completion happens-before the next one).
+     */
+    private final class Chain {
+        private final LoadStats.Probe probe;
+        private final int rowsPerOp;
+        private final Supplier<CompletableFuture<Boolean>> operation;
+
+        private Chain(final LoadStats.Probe probe, final int rowsPerOp, final Supplier<CompletableFuture<Boolean>> operation) {
+            this.probe = probe;
+            this.rowsPerOp = rowsPerOp;
+            this.operation = operation;
+        }
+
+        void next() {
+            while (!stop.get()) {
+                final long startNanos = System.nanoTime();
+                final CompletableFuture<Boolean> future = issue();
+                if (!future.isDone()) {
+                    future.whenComplete((success, error) -> {
+                        probe.record(error == null && success, rowsPerOp, System.nanoTime() - startNanos);
+                        next();
+                    });
+                    return;
+                }
+                //note [DM] completed in place (e.g. rejected), loop instead of recursion to keep stack flat.
+                probe.record(!future.isCompletedExceptionally() && future.join(), rowsPerOp, System.nanoTime() - startNanos);
+            }
+            running.decrementAndGet();
+        }
+
+        private CompletableFuture<Boolean> issue() {
+            try {
+                return operation.get();
+            } catch (final RuntimeException oops) {
+                final CompletableFuture<Boolean> failed = new CompletableFuture<>();
+                failed.completeExceptionally(oops);
+                return failed;
+            }
+        }
+    }
+}
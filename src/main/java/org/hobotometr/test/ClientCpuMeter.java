@@ -0,0 +1,50 @@
+package org.hobotometr.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CPU time consumed by load client threads of one test (they all live in own {@link ThreadGroup}),
+ * so client overhead of tests running in parallel is accounted separately.
+ * Virtual threads are not members of thread groups and don't report CPU time, meter reports -1 for them.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 05:20 PM
+ */
+class ClientCpuMeter {
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ThreadGroup group;
+    private final Map<Long, Long> lastCpuNanos = new HashMap<>();
+
+    ClientCpuMeter(final ThreadGroup group) {
+        this.group = group;
+    }
+
+    /**
+     * Not thread safe, must be called from single sampler thread only.
+     *
+     * @return CPU milliseconds consumed by client threads since previous call, or -1 when it can't be measured.
+     */
+    long sampleMillis() {
+        if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        final Thread[] members = new Thread[group.activeCount() * 2 + 16];
+        final int count = group.enumerate(members, true);
+        if (count == 0) {
+            return -1;
+        }
+        long consumedNanos = 0;
+        for (int i = 0; i < count; i++) {
+            final long threadId = members[i].getId();
+            final long cpuNanos = threads.getThreadCpuTime(threadId);
+            if (cpuNanos >= 0) {
+                final Long previous = lastCpuNanos.put(threadId, cpuNanos);
+                consumedNanos += cpuNanos - (previous != null ? previous : 0L);
+            }
+        }
+        return consumedNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,125 @@
+package org.hobotometr.test;
+
+import com.google.common.base.Charsets;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.hobotometr.db.Database;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.PoolOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * What a cold pool costs: all clients start at once against just created pool (connections are opened under load),
+ * then same burst is repeated against that pool once it is full, then fresh pool is prefilled without load.
+ * Each burst is {@link EnvSpec#stormOps} point reads per client, latency includes pool wait.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 12:20 AM
+ */
+public class ConnectionStorm {
+    private final DatabaseType databaseType;
+    private final String host;
+    private final int poolSize;
+    private final int clients;
+
+    public ConnectionStorm(final DatabaseType databaseType, final int poolSize) {
+        this.databaseType = databaseType;
+        this.host = EnvSpec.hostFor(databaseType);
+        this.poolSize = poolSize;
+        this.clients = TestSuiteRunner.clientsFor(poolSize);
+    }
+
+    /**
+     * Summary is written into data/&lt;db&gt;/&lt;host&gt;/connection-storm-&lt;pool size&gt;.txt
+     */
+    public void run() throws IOException, InterruptedException {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("# Connection storm: %s pool=%d clients=%d, %d point reads per client\n",
+                databaseType, poolSize, clients, EnvSpec.stormOps));
+        summary.append(String.format("%-8s %8s %10s %10s %10s %10s %10s %10s %8s %12s\n", "phase", "wall_ms",
+                "first_p50", "first_p99", "first_max", "op_p50", "op_p99", "op_max", "connects", "connect_p99"));
+        final Database pool = databaseType.createConnectionPool(host, poolSize, PoolOptions.defaults);
+        try {
+            pool.getIntervalConnectTime(); //reset.
+            summary.append(burst("cold", pool));
+            summary.append(burst("warm", pool));
+        } finally {
+            pool.close();
+        }
+
+        final Database prefilled = databaseType.createConnectionPool(host, poolSize, PoolOptions.defaults);
+        try {
+            final long startNanos = System.nanoTime();
+            prefilled.prefill();
+            final long prefillMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            final Histogram connectTime = prefilled.getIntervalConnectTime();
+            summary.append(String.format("%-8s %8d %10s %10s %10s %10s %10s %10s %8s %12s\n", "prefill", prefillMillis, "-", "-", "-", "-", "-", "-",
+                    connectTime != null ? connectTime.getTotalCount() : "-", connectTime != null ? connectTime.getValueAtPercentile(99.0) : "-"));
+        } finally {
+            prefilled.close();
+        }
+        summary.append("# latencies are in microseconds, first_* is latency of first operation of each client\n");
+
+        final File summaryFile = new File(String.format("data/%s/%s/connection-storm-%04d.txt", databaseType, host, poolSize));
+        if (!summaryFile.getParentFile().exists()) {
+            checkState(summaryFile.getParentFile().mkdirs());
+        }
+        Files.write(summaryFile.toPath(), summary.toString().getBytes(Charsets.UTF_8));
+        System.out.print(summary);
+    }
+
+    private String burst(final String phase, final Database database) throws InterruptedException {
+        final Recorder firstLatency = new Recorder(LoadStats.highestTrackableMicros, LoadStats.significantDigits);
+        final Recorder latency = new Recorder(LoadStats.highestTrackableMicros, LoadStats.significantDigits);
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < EnvSpec.stormOps; op++) {
+                    final long startNanos = System.nanoTime();
+                    if (!database.selectCpuLite(1, EnvSpec.readRangeDefault)) {
+                        errors.incrementAndGet();
+                    }
+                    final long micros = Math.min(LoadStats.highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                    (op == 0 ? firstLatency : latency).recordValue(micros);
+                }
+            }, "storm-" + phase + "-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        final Histogram first = firstLatency.getIntervalHistogram();
+        final Histogram all = latency.getIntervalHistogram();
+        all.add(first);
+        final Histogram connectTime = database.getIntervalConnectTime();
+        if (errors.get() > 0) {
+            System.out.println("Connection storm " + phase + ": " + errors.get() + " failed operations");
+        }
+        return String.format("%-8s %8d %10d %10d %10d %10d %10d %10d %8s %12s\n", phase, wallMillis,
+                first.getValueAtPercentile(50.0), first.getValueAtPercentile(99.0), first.getMaxValue(),
+                all.getValueAtPercentile(50.0), all.getValueAtPercentile(99.0), all.getMaxValue(),
+                connectTime != null ? connectTime.getTotalCount() : "-", connectTime != null ? connectTime.getValueAtPercentile(99.0) : "-");
+    }
+}
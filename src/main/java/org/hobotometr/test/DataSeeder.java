@@ -0,0 +1,52 @@
+package org.hobotometr.test;
+
+import org.hobotometr.db.Database;
+import org.hobotometr.db.DatabaseType;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Seeding stage: makes sure rows used by query and update tests exist, loads missing rows in bulk
+ * (COPY for PostgreSQL, LOAD DATA for MySQL, bulk writes for Mongo) instead of one row per round trip.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 02:50 PM
+ */
+public class DataSeeder {
+    private static final Set<DatabaseType> seeded = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Not synchronized: parallel series seed different databases, each database is seeded by own series only.
+     */
+    public static void ensureSeeded(final DatabaseType databaseType) {
+        if (!EnvSpec.seed || seeded.contains(databaseType)) {
+            return;
+        }
+        final int required = EnvSpec.seedRows > 0
+                ? EnvSpec.seedRows
+                : Math.max(EnvSpec.readRangeDefault, EnvSpec.updateRangeDefault);
+        final Database database = databaseType.createConnectionPool(EnvSpec.hostFor(databaseType), 1);
+        try {
+            database.init();
+            final long present = database.countRows(required);
+            if (present < required) {
+                final long missing = required - present;
+                System.out.printf("Seed %s: %d of %d rows present, load %d rows\n", databaseType, present, required, missing);
+                final long startMillis = System.currentTimeMillis();
+                database.bulkLoad(missing);
+                final double seconds = Math.max(1, System.currentTimeMillis() - startMillis) / 1000.0;
+                System.out.printf("Seed %s: loaded %d rows in %.1f sec (%.0f rows/sec)\n", databaseType, missing, seconds, missing / seconds);
+            }
+            final long seededRows = database.countRows(required);
+            checkState(seededRows >= required,
+                    "Seed %s: only %s rows with id in [1, %s], id sequence probably started above the range (recreate table)",
+                    databaseType, seededRows, required);
+            seeded.add(databaseType);
+        } finally {
+            database.close();
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package org.hobotometr.test;
 
+import com.google.common.base.Splitter;
+import org.hobotometr.db.CacheWrites;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.KeyDistribution;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * @author dmitry.mamonov
  *         Created: 2014-09-14 1:15 AM
@@ -10,14 +19,79 @@ public class EnvSpec {
     }
 
     public static final String host = getSystemProperty("host", "localhost", "host/ip address of server with configured database(es) for testing");
+    public static final boolean parallel = Boolean.parseBoolean(getSystemProperty("parallel", "false", "Run series of different databases in parallel (only ones on different hosts, see -Dhost.<db>)"));
     public static final boolean yield = Boolean.parseBoolean(getSystemProperty("yield", "false", "Make a Thread.yield() after each query (interesting in situation where pool=1 and consumers=2)"));
     public static final boolean insertFirst = Boolean.parseBoolean(getSystemProperty("insert.first", "true", "Will perform data inserts tests before queries tests (required for first run)"));
+    public static final boolean seed = Boolean.parseBoolean(getSystemProperty("seed", "true", "Bulk load rows required by query/update tests before running them"));
+    public static final int seedRows = Integer.parseInt(getSystemProperty("seed.rows", "0", "Amount of rows to seed (0 means max of read.range and update.range)"));
     public static final boolean simpleOnly = Boolean.parseBoolean(getSystemProperty("simple.only", "true", "Do not run composite tests where insert/update/select operations run in parallel)"));
     public static final boolean forceGcDuringTest = Boolean.parseBoolean(getSystemProperty("gc.in.test", "false", "Invoke System.gc() each 10 seconds during test run"));
     public static final long freeTime = Long.parseLong(getSystemProperty("free.time", "5000", "Amount of Milliseconds to sleep between tests (helps to eliminate CPU overheat throttling during test)"));
     public static final int readRangeDefault = Integer.parseInt(getSystemProperty("read.range", "100000", "first N entries will be used for query tests (make sure there is enough entries in database)"));
+    public static final LoadEngine engine = LoadEngine.valueOf(getSystemProperty("engine", "platform", "How to run load clients: platform (thread per client), virtual (virtual thread per client), executor (bounded thread pool)"));
+    public static final int engineThreads = Integer.parseInt(getSystemProperty("engine.threads", "256", "Amount of platform threads for executor engine"));
+    public static final int clients = Integer.parseInt(getSystemProperty("clients", "0", "Amount of load clients in simple tests (0 means same as pool size)"));
+    public static final String batchSizes = getSystemProperty("batch.sizes", "10,100,1000", "Batch sizes (rows per round trip) for batch insert/update tests");
+    public static final int rateFrom = Integer.parseInt(getSystemProperty("rate.from", "1000", "Target rate (ops/sec) at the beginning of rate ramp tests"));
+    public static final int rateTo = Integer.parseInt(getSystemProperty("rate.to", "50000", "Target rate (ops/sec) at the end of rate ramp tests"));
+    public static final Arrival rateArrival = Arrival.valueOf(getSystemProperty("rate.arrival", "constant", "Arrivals distribution in rate ramp tests: constant, poisson"));
+    public static final int rateClients = Integer.parseInt(getSystemProperty("rate.clients", "4", "Load threads per pool connection in rate ramp tests (allows queueing for pool)"));
+    public static final KeyDistribution keys = KeyDistribution.parse(getSystemProperty("keys", "uniform", "Ids access distribution in simple tests: uniform, zipfian_<theta>, hotspot_<ops%>_<keys%>, latest_<theta>"));
+    public static final String keysList = getSystemProperty("keys.list", "uniform,zipfian_0.99,hotspot_90_10,latest_0.99", "Ids access distributions compared by keys suite");
+    public static final boolean adaptive = Boolean.parseBoolean(getSystemProperty("adaptive", "false", "Measure after steady state is detected (instead of fixed 40/15 sec warm up) and stop once mean throughput is known precisely"));
+    public static final int warmupWindow = Integer.parseInt(getSystemProperty("warmup.window", "10", "Adaptive: sliding window (seconds) to detect steady state"));
+    public static final double warmupOpsCv = Double.parseDouble(getSystemProperty("warmup.cv", "0.05", "Adaptive: max coefficient of variation of throughput in steady state"));
+    public static final double warmupLatencyCv = Double.parseDouble(getSystemProperty("warmup.cv.latency", "0.20", "Adaptive: max coefficient of variation of p99 latency in steady state"));
+    public static final int trackingMinSeconds = Integer.parseInt(getSystemProperty("tracking.min", "20", "Adaptive: min measurement time (seconds) before early stop"));
+    public static final double trackingCi = Double.parseDouble(getSystemProperty("tracking.ci", "0.01", "Adaptive: stop once 95% confidence interval half width is below that share of mean throughput"));
+    public static final String searchWorkloads = getSystemProperty("search.workloads", "selectLite,updateTiny,insert", "Workloads to find optimal pool size for (selectLite, selectHeavy, insert, updateTiny, updateWide)");
+    public static final int searchP99Limit = Integer.parseInt(getSystemProperty("search.p99.limit", "10000", "Pool search: p99 latency limit (microseconds)"));
+    public static final double searchGain = Double.parseDouble(getSystemProperty("search.gain", "0.05", "Pool search: stop doubling pool size when throughput grows less than that share"));
+    public static final double searchKnee = Double.parseDouble(getSystemProperty("search.knee", "0.95", "Pool search: choose smallest pool size with at least that share of best throughput"));
+    public static final String pools = getSystemProperty("pools", "hikari,unpooled,tomcat,dbcp2", "Connection pool implementations compared by pools suite (hikari, unpooled, tomcat, dbcp2)");
+    public static final String asyncInFlight = getSystemProperty("async.in.flight", "1,4,16", "Async: operations in flight per client compared by async suite against blocking clients");
+    public static final String redisPipelineDepths = getSystemProperty("redis.pipeline.depths", "1,10,100", "Redis: pipeline depths (commands per round trip) compared by redis suite");
+    public static final boolean poolReuse = Boolean.parseBoolean(getSystemProperty("pool.reuse", "true", "Keep connection pools open between consecutive tests of a database when next test uses same pool size and options"));
+    public static final boolean poolPrefill = Boolean.parseBoolean(getSystemProperty("pool.prefill", "true", "Open all pooled connections before warm up, so early samples are not skewed by pool fill"));
+    public static final int stormOps = Integer.parseInt(getSystemProperty("storm.ops", "100", "Connection storm: operations per client in each burst"));
+    public static final int startupPools = Integer.parseInt(getSystemProperty("startup.pools", "50", "Pool startup: pools created at the same moment against one host (pool size comes from -Dsizes)"));
+    public static final int startupSeconds = Integer.parseInt(getSystemProperty("startup.seconds", "30", "Pool startup: observation window (seconds) per run"));
+    public static final String startupPoolProviders = getSystemProperty("startup.pool.impls", "hikari", "Pool startup: pool implementations to start (hikari, unpooled, tomcat, dbcp2)");
+    public static final String replicas = getSystemProperty("replicas", "", "Replica hosts (host[:port],...) reads are routed to by replicas suite, -Dreplicas.<db> per database; primary is -Dhost");
+    public static final String balancings = getSystemProperty("balancings", "none,roundRobin,leastOutstanding,latencyWeighted", "Replicas: read balancing strategies compared by replicas suite");
+    public static final long rawProbeMillis = Long.parseLong(getSystemProperty("raw.probe.ms", "10", "Replicas: pause (milliseconds) between read-after-write checks (write on primary, read from replica at once)"));
+    public static final String cacheSizes = getSystemProperty("cache.sizes", "1000,10000,100000", "Cache suite: client side cache sizes (rows) compared against uncached baseline");
+    public static final int cacheTtlSeconds = Integer.parseInt(getSystemProperty("cache.ttl", "0", "Cache suite: time to live (seconds) of cached rows, 0 means evicted by size only"));
+    public static final CacheWrites cacheWrites = CacheWrites.valueOf(getSystemProperty("cache.writes", "invalidate", "Cache suite: what tiny updates do to cached row: invalidate, through (write new value into cache)"));
+    public static final String scanQueries = getSystemProperty("scan.queries", "stream,keyset,topN", "Scan suite: scan shapes (stream, keyset, topN) compared against avg(val) heavy read of same range");
+    public static final int scanSize = Integer.parseInt(getSystemProperty("scan.size", "10000", "Scan suite: ids per scanned range"));
+    public static final String scanFetchSizes = getSystemProperty("scan.fetch.sizes", "10,100,1000", "Scan suite: rows per round trip (JDBC fetch size, Mongo batch size, keyset page size; N of top N)");
+    public static final String scenario = getSystemProperty("scenario", "scenarios/oltp.json", "Scenario suite: json file (or bundled scenarios/*.json) with operation mixes by weight, see Scenario");
+    public static final ResultSink results = ResultSink.valueOf(getSystemProperty("results", "csv", "Where test samples go: csv (file per test) or store (single data/results.bin log, see export suite)"));
+    public static final String exportFormat = getSystemProperty("export.format", "json", "Export suite: json (data/results.json, read by report) or csv (file per test, existing are overwritten)");
+    public static final int metricsPort = Integer.parseInt(getSystemProperty("metrics.port", "0", "Serve live samples of running tests on that port: /metrics (Prometheus) and /events (server-sent events), 0 disables"));
+    public static final boolean jfr = Boolean.parseBoolean(getSystemProperty("jfr", "false", "Record JFR profile (allocations, CPU) of each tracked test run into <test>.jfr"));
     public static final int updateRangeDefault = Integer.parseInt(getSystemProperty("update.range", "400000", "first N entries will be used for update tests (make sure there is enough entries in database)"));
 
+    static { //note [DM] sample variance of warm up window and tracked samples needs at least two of them.
+        checkArgument(warmupWindow >= 2, "Adaptive warm up window must be at least 2 seconds: %s", warmupWindow);
+        checkArgument(trackingMinSeconds >= 2, "Adaptive min tracking time must be at least 2 seconds: %s", trackingMinSeconds);
+    }
+
+    /**
+     * @return host of given database: -Dhost.<db> or common -Dhost.
+     */
+    public static String hostFor(final DatabaseType databaseType) {
+        return System.getProperty("host." + databaseType, host);
+    }
+
+    /**
+     * @return replica hosts of given database: -Dreplicas.<db> or common -Dreplicas.
+     */
+    public static List<String> replicasFor(final DatabaseType databaseType) {
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(System.getProperty("replicas." + databaseType, replicas));
+    }
+
     private static String getSystemProperty(final String key, final String byDefault, final String comment) {
         final String value = System.getProperty(key, byDefault);
         System.out.printf("  %-30s %-12s # %s\n", " -D" + key + "=" + value, (byDefault.equals(value) ? "(default)" : "(parameter)"), comment);
@@ -0,0 +1,71 @@
+package org.hobotometr.test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+/**
+ * JFR recording of a test run (allocation and CPU profile of load clients), driven through
+ * FlightRecorderMXBean, so it works on any JDK with JFR (8u262+, 11+) without compile time dependency.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 04:30 PM
+ */
+class FlightRecording implements AutoCloseable {
+    private static final String flightRecorderBean = "jdk.management.jfr:type=FlightRecorder";
+    private final MBeanServer server;
+    private final ObjectName recorder;
+    private final long recordingId;
+    private final File output;
+
+    private FlightRecording(final MBeanServer server, final ObjectName recorder, final long recordingId, final File output) {
+        this.server = server;
+        this.recorder = recorder;
+        this.recordingId = recordingId;
+        this.output = output;
+    }
+
+    /**
+     * Start recording with predefined "profile" settings (includes allocation samples).
+     *
+     * @return recording or null when JFR is not available in current JVM.
+     */
+    static FlightRecording start(final File output) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName recorder = new ObjectName(flightRecorderBean);
+            if (!server.isRegistered(recorder)) {
+                System.out.println("JFR is not available in " + System.getProperty("java.version") + ", skip recording");
+                return null;
+            }
+            final long recordingId = (Long) server.invoke(recorder, "newRecording", new Object[0], new String[0]);
+            server.invoke(recorder, "setPredefinedConfiguration",
+                    new Object[]{recordingId, "profile"},
+                    new String[]{long.class.getName(), String.class.getName()});
+            server.invoke(recorder, "startRecording", new Object[]{recordingId}, new String[]{long.class.getName()});
+            return new FlightRecording(server, recorder, recordingId, output);
+        } catch (final JMException oops) {
+            System.out.println("Failed to start JFR recording: " + oops);
+            return null;
+        }
+    }
+
+    /**
+     * Stop recording and dump it into output file.
+     */
+    @Override
+    public void close() {
+        try {
+            server.invoke(recorder, "stopRecording", new Object[]{recordingId}, new String[]{long.class.getName()});
+            server.invoke(recorder, "copyTo",
+                    new Object[]{recordingId, output.getAbsolutePath()},
+                    new String[]{long.class.getName(), String.class.getName()});
+            server.invoke(recorder, "closeRecording", new Object[]{recordingId}, new String[]{long.class.getName()});
+            System.out.println("JFR recording saved: " + output + " (see jdk.ObjectAllocationSample events of load threads)");
+        } catch (final JMException oops) {
+            System.out.println("Failed to save JFR recording: " + oops);
+        }
+    }
+}
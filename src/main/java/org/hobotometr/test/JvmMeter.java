@@ -0,0 +1,91 @@
+package org.hobotometr.test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client side JVM activity per sample: garbage collections, heap occupancy and allocations of load client threads,
+ * so throughput dips caused by client GC can be told apart from database behaviour.
+ * GC and heap are JVM wide (shared by tests running in parallel), allocations are of test's own client threads.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 11:10 PM
+ */
+class JvmMeter {
+    private static final long kb = 1024;
+    private static final long mb = 1024 * 1024;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ThreadGroup group;
+    private final Map<Long, Long> lastAllocatedBytes = new HashMap<>();
+    private long lastGcCount = 0;
+    private long lastGcMillis = 0;
+
+    JvmMeter(final ThreadGroup group) {
+        this.group = group;
+    }
+
+    /**
+     * Not thread safe, must be called from single sampler thread only.
+     *
+     * @return GC count and collection milliseconds since previous call (includes concurrent cycles of concurrent collectors,
+     * so it is not a pause time), heap and old generation used MB,
+     * KB allocated by client threads since previous call (-1 when it can't be measured).
+     */
+    long[] sample() {
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (final GarbageCollectorMXBean collector : collectors) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        long heapUsed = 0;
+        long oldGenUsed = 0;
+        for (final MemoryPoolMXBean pool : memoryPools) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                final long used = pool.getUsage().getUsed();
+                heapUsed += used;
+                if (pool.getName().contains("Old") || pool.getName().contains("Tenured")) {
+                    oldGenUsed += used;
+                }
+            }
+        }
+        final long allocatedBytes = sampleAllocatedBytes();
+        final long[] result = {gcCount - lastGcCount, gcMillis - lastGcMillis, heapUsed / mb, oldGenUsed / mb, allocatedBytes >= 0 ? allocatedBytes / kb : -1};
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+        return result;
+    }
+
+    private long sampleAllocatedBytes() {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        final Thread[] members = new Thread[group.activeCount() * 2 + 16];
+        final int count = group.enumerate(members, true);
+        if (count == 0) {
+            return -1; //note [DM] virtual threads are not enumerable.
+        }
+        long allocatedBytes = 0;
+        for (int i = 0; i < count; i++) {
+            final long threadId = members[i].getId();
+            final long bytes = allocations.getThreadAllocatedBytes(threadId);
+            if (bytes >= 0) {
+                final Long previous = lastAllocatedBytes.put(threadId, bytes);
+                allocatedBytes += bytes - (previous != null ? previous : 0L);
+            }
+        }
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,211 @@
+package org.hobotometr.test;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Charsets;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded http endpoint with latest per second samples of running tests:
+ * <ul>
+ * <li>{@code curl localhost:9464/metrics}: Prometheus text format, gauge per sample column labeled by test;</li>
+ * <li>{@code curl -N localhost:9464/events}: server-sent events, json sample of each test every second.</li>
+ * </ul>
+ * Samples are published by sampler thread of each test, load threads never touch it.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 10:05 PM
+ */
+public class LiveMetrics {
+    private static final int subscriberBacklog = 256;
+    private static volatile LiveMetrics running;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Map<String, Sample> latest = new ConcurrentHashMap<>();
+    private final List<BlockingQueue<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    private LiveMetrics(final int port) throws IOException {
+        this.handlers = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "live-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(handlers);
+        this.server.createContext("/metrics", this::handleMetrics);
+        this.server.createContext("/events", this::handleEvents);
+        this.server.start();
+    }
+
+    public static LiveMetrics start(final int port) throws IOException {
+        final LiveMetrics liveMetrics = new LiveMetrics(port);
+        running = liveMetrics;
+        System.out.println("Live metrics: http://localhost:" + port + "/metrics, http://localhost:" + port + "/events");
+        return liveMetrics;
+    }
+
+    public void stop() {
+        running = null;
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    /**
+     * Publish sample of a running test, no-op when endpoint is not started.
+     *
+     * @param values sample values, named by {@link TestRunner#columns}.
+     */
+    static void publish(final String database, final String host, final String spec, final long[] values) {
+        final LiveMetrics liveMetrics = running;
+        if (liveMetrics != null) {
+            liveMetrics.publish(new Sample(database, host, spec, values.clone(), System.currentTimeMillis(), gcTotals()));
+        }
+    }
+
+    /**
+     * Test is finished, its gauges are not exported anymore.
+     */
+    static void finish(final String database, final String host, final String spec) {
+        final LiveMetrics liveMetrics = running;
+        if (liveMetrics != null) {
+            liveMetrics.latest.remove(ResultStore.key(database, host, spec));
+            liveMetrics.broadcast("event: finish\ndata: {\"test\": " + quote(ResultStore.key(database, host, spec)) + "}\n\n");
+        }
+    }
+
+    private void publish(final Sample sample) {
+        latest.put(sample.key(), sample);
+        broadcast("event: sample\ndata: " + sample.toJson() + "\n\n");
+    }
+
+    private void broadcast(final String event) {
+        for (final BlockingQueue<String> subscriber : subscribers) {
+            subscriber.offer(event); //note [DM] slow subscriber loses events, publisher never waits.
+        }
+    }
+
+    private void handleMetrics(final HttpExchange exchange) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (final String column : TestRunner.columns) {
+            if ("Time".equals(column)) {
+                continue;
+            }
+            final String name = metricName(column);
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            final int index = TestRunner.columns.indexOf(column);
+            for (final Sample sample : latest.values()) {
+                text.append(name).append(sample.labels()).append(' ').append(sample.values[index]).append('\n');
+            }
+        }
+        final long[] gc = gcTotals();
+        text.append("# TYPE hobotometr_gc_collections_total counter\n");
+        text.append("hobotometr_gc_collections_total ").append(gc[0]).append('\n');
+        text.append("# TYPE hobotometr_gc_time_ms_total counter\n");
+        text.append("hobotometr_gc_time_ms_total ").append(gc[1]).append('\n');
+
+        final byte[] body = text.toString().getBytes(Charsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void handleEvents(final HttpExchange exchange) throws IOException {
+        final BlockingQueue<String> subscriber = new ArrayBlockingQueue<>(subscriberBacklog);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        subscribers.add(subscriber);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            for (final Sample sample : latest.values()) {
+                subscriber.offer("event: sample\ndata: " + sample.toJson() + "\n\n");
+            }
+            while (true) {
+                final String event = subscriber.poll(15, TimeUnit.SECONDS);
+                out.write((event != null ? event : ": keep-alive\n\n").getBytes(Charsets.UTF_8));
+                out.flush();
+            }
+        } catch (final IOException | InterruptedException disconnected) {
+            //client is gone or server stopped.
+        } finally {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * @return collections count and time (milliseconds) of all collectors since JVM start.
+     */
+    private static long[] gcTotals() {
+        final long[] totals = new long[2];
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, gc.getCollectionCount());
+            totals[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return totals;
+    }
+
+    private static String metricName(final String column) {
+        return "hobotometr_" + CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, column);
+    }
+
+    private static String quote(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static final class Sample {
+        private final String database;
+        private final String host;
+        private final String spec;
+        private final long[] values;
+        private final long timestampMillis;
+        private final long[] gcTotals;
+
+        private Sample(final String database, final String host, final String spec, final long[] values,
+                       final long timestampMillis, final long[] gcTotals) {
+            this.database = database;
+            this.host = host;
+            this.spec = spec;
+            this.values = values;
+            this.timestampMillis = timestampMillis;
+            this.gcTotals = gcTotals;
+        }
+
+        String key() {
+            return ResultStore.key(database, host, spec);
+        }
+
+        String labels() {
+            return "{database=" + quote(database) + ",host=" + quote(host) + ",test=" + quote(spec) + "}";
+        }
+
+        String toJson() {
+            final StringBuilder json = new StringBuilder("{\"database\": ").append(quote(database))
+                    .append(", \"host\": ").append(quote(host))
+                    .append(", \"test\": ").append(quote(spec))
+                    .append(", \"timestamp\": ").append(timestampMillis);
+            for (int i = 0; i < values.length; i++) {
+                json.append(", ").append(quote(TestRunner.columns.get(i))).append(": ").append(values[i]);
+            }
+            json.append(", \"GcCollectionsTotal\": ").append(gcTotals[0]);
+            json.append(", \"GcTimeMsTotal\": ").append(gcTotals[1]);
+            return json.append('}').toString();
+        }
+    }
+}
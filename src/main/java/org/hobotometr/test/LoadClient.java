@@ -0,0 +1,11 @@
+package org.hobotometr.test;
+
+/**
+ * Simulated database client, performs one operation per step.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 12:40 PM
+ */
+public interface LoadClient {
+    void step();
+}
@@ -0,0 +1,108 @@
+package org.hobotometr.test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Way to run client loops: allows to simulate thousands of clients contending for a small pool.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 12:45 PM
+ */
+public enum LoadEngine {
+    /**
+     * One platform thread per client (classic mode).
+     */
+    platform {
+        @Override
+        ExecutorService createExecutor(final ThreadGroup group, final int clients) {
+            return Executors.newCachedThreadPool(namedThreadFactory(group));
+        }
+    },
+    /**
+     * One virtual thread per client (JDK 21+), falls back to {@link #executor} on older JDK.
+     */
+    virtual {
+        @Override
+        ExecutorService createExecutor(final ThreadGroup group, final int clients) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (final NoSuchMethodException | IllegalAccessException | InvocationTargetException unsupported) {
+                System.out.println("Virtual threads are not available in " + System.getProperty("java.version") + ", fallback to " + executor);
+                return executor.createExecutor(group, clients);
+            }
+        }
+    },
+    /**
+     * Clients are multiplexed over bounded pool of {@link EnvSpec#engineThreads} platform threads, one step per task.
+     */
+    executor {
+        @Override
+        ExecutorService createExecutor(final ThreadGroup group, final int clients) {
+            return Executors.newFixedThreadPool(Math.min(clients, EnvSpec.engineThreads), namedThreadFactory(group));
+        }
+
+        @Override
+        Runnable clientTask(final ExecutorService executorService, final LoadClient client, final AtomicBoolean stop) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    client.step();
+                    if (!stop.get()) {
+                        try {
+                            executorService.execute(this); //note [DM] re-submit to the tail of queue, so clients share threads fairly.
+                        } catch (final RejectedExecutionException ignore) {
+                            //stopped concurrently.
+                        }
+                    }
+                }
+            };
+        }
+    };
+
+    abstract ExecutorService createExecutor(ThreadGroup group, int clients);
+
+    Runnable clientTask(final ExecutorService executorService, final LoadClient client, final AtomicBoolean stop) {
+        return () -> {
+            while (!stop.get()) {
+                client.step();
+            }
+        };
+    }
+
+    /**
+     * Start given clients, they are running until stop flag is set.
+     *
+     * @param group platform threads of clients are created in that group (named after it).
+     * @return executor to shutdown after stop.
+     */
+    public ExecutorService start(final ThreadGroup group, final List<? extends LoadClient> clients, final AtomicBoolean stop) {
+        final ExecutorService executorService = createExecutor(group, Math.max(1, clients.size()));
+        for (final LoadClient client : clients) {
+            executorService.execute(clientTask(executorService, client, stop));
+        }
+        return executorService;
+    }
+
+    /**
+     * Wait for clients to finish their current operations after stop flag is set.
+     */
+    public static void awaitStop(final ExecutorService executorService, final long timeoutMillis) throws InterruptedException {
+        executorService.shutdown();
+        if (!executorService.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            System.out.println("Some load clients are still running after " + timeoutMillis + "ms");
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(final ThreadGroup group) {
+        final AtomicInteger sequence = new AtomicInteger();
+        return runnable -> new Thread(group, runnable, group.getName() + "-" + sequence.incrementAndGet());
+    }
+}
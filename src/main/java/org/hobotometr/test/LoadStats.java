@@ -0,0 +1,169 @@
+package org.hobotometr.test;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Counters and latency statistics of one family of load threads (read or write).
+ * Each load thread records into its own {@link Probe}, sampler merges probes once per second
+ * using snapshot deltas, so counters are never reset and no operation is lost between samples.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 10:05 AM
+ */
+public class LoadStats {
+    static final long highestTrackableMicros = TimeUnit.MINUTES.toMicros(1);
+    static final int significantDigits = 3;
+    /**
+     * Above that amount of probes (e.g. thousands of virtual thread clients) recorders use packed histograms,
+     * they take memory proportional to recorded values, but may allocate while growing.
+     */
+    static final int compactProbesThreshold = 256;
+
+    private final String tag;
+    private final boolean compactProbes;
+    private final List<Probe> probes = new CopyOnWriteArrayList<>();
+    private final Histogram latency = new Histogram(highestTrackableMicros, significantDigits);
+    private long totalOps = 0;
+    private long totalErrors = 0;
+    private long totalRows = 0;
+    private long totalBytes = 0;
+    private long intervalOps = 0;
+    private long intervalErrors = 0;
+    private long intervalRows = 0;
+    private long intervalBytes = 0;
+
+    public LoadStats(final String tag, final int expectedProbes) {
+        this.tag = tag;
+        this.compactProbes = expectedProbes > compactProbesThreshold;
+        this.latency.setTag(tag);
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Probe newProbe() {
+        final Probe probe = new Probe(compactProbes
+                ? new SingleWriterRecorder(significantDigits, true)
+                : new SingleWriterRecorder(highestTrackableMicros, significantDigits));
+        probes.add(probe);
+        return probe;
+    }
+
+    /**
+     * Take snapshot of all probes and compute interval values since previous call.
+     * Not thread safe, must be called from single sampler thread only.
+     */
+    public void sample(final long startMillis, final long endMillis) {
+        long ops = 0;
+        long errors = 0;
+        long rows = 0;
+        long bytes = 0;
+        latency.reset();
+        for (final Probe probe : probes) {
+            ops += probe.ops;
+            errors += probe.errors;
+            rows += probe.rows;
+            bytes += probe.bytes;
+            probe.intervalHistogram = probe.recorder.getIntervalHistogram(probe.intervalHistogram);
+            latency.add(probe.intervalHistogram);
+        }
+        latency.setStartTimeStamp(startMillis);
+        latency.setEndTimeStamp(endMillis);
+
+        intervalOps = ops - totalOps;
+        intervalErrors = errors - totalErrors;
+        intervalRows = rows - totalRows;
+        intervalBytes = bytes - totalBytes;
+        totalOps = ops;
+        totalErrors = errors;
+        totalRows = rows;
+        totalBytes = bytes;
+    }
+
+    public long getIntervalOps() {
+        return intervalOps;
+    }
+
+    public long getIntervalErrors() {
+        return intervalErrors;
+    }
+
+    /**
+     * @return rows processed by successful operations, differs from ops count for batch operations and scans.
+     */
+    public long getIntervalRows() {
+        return intervalRows;
+    }
+
+    /**
+     * @return bytes of rows read by successful operations, only scans count them.
+     */
+    public long getIntervalBytes() {
+        return intervalBytes;
+    }
+
+    /**
+     * @return latencies (microseconds) of last sampled interval, histogram is reused by next sample.
+     */
+    public Histogram getIntervalLatency() {
+        return latency;
+    }
+
+    abstract static class ProbeLeftPadding {
+        @SuppressWarnings("unused")
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    abstract static class ProbeCounters extends ProbeLeftPadding {
+        static final AtomicLongFieldUpdater<ProbeCounters> opsUpdater = AtomicLongFieldUpdater.newUpdater(ProbeCounters.class, "ops");
+        static final AtomicLongFieldUpdater<ProbeCounters> errorsUpdater = AtomicLongFieldUpdater.newUpdater(ProbeCounters.class, "errors");
+        static final AtomicLongFieldUpdater<ProbeCounters> rowsUpdater = AtomicLongFieldUpdater.newUpdater(ProbeCounters.class, "rows");
+        static final AtomicLongFieldUpdater<ProbeCounters> bytesUpdater = AtomicLongFieldUpdater.newUpdater(ProbeCounters.class, "bytes");
+        volatile long ops;
+        volatile long errors;
+        volatile long rows;
+        volatile long bytes;
+    }
+
+    abstract static class ProbeRightPadding extends ProbeCounters {
+        @SuppressWarnings("unused")
+        long p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    /**
+     * Single writer counters and latency recorder owned by one load thread.
+     * Counters are padded to own cache line and published with lazySet, recording does not allocate.
+     */
+    public static final class Probe extends ProbeRightPadding {
+        private final SingleWriterRecorder recorder;
+        private Histogram intervalHistogram; //note [DM] accessed by sampler thread only.
+
+        private Probe(final SingleWriterRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        public void record(final boolean success, final int rowsPerOp, final long latencyNanos) {
+            record(success, rowsPerOp, 0, latencyNanos);
+        }
+
+        public void record(final boolean success, final long rowsPerOp, final long bytesPerOp, final long latencyNanos) {
+            recorder.recordValue(Math.min(highestTrackableMicros, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            if (success) {
+                opsUpdater.lazySet(this, ops + 1);
+                rowsUpdater.lazySet(this, rows + rowsPerOp);
+                if (bytesPerOp != 0) {
+                    bytesUpdater.lazySet(this, bytes + bytesPerOp);
+                }
+            } else {
+                errorsUpdater.lazySet(this, errors + 1);
+            }
+        }
+    }
+}
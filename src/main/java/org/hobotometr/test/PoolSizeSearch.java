@@ -0,0 +1,132 @@
+package org.hobotometr.test;
+
+import com.google.common.base.Charsets;
+import org.hobotometr.db.DatabaseType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Search of pool size which gives max throughput within p99 latency limit, instead of full sweep over all sizes:
+ * <ol>
+ * <li>probe sizes 1, 2, 4, ... until throughput stops growing (or latency limit is broken), that brackets the knee;</li>
+ * <li>golden section search within bracket narrows it down to neighbour sizes;</li>
+ * <li>chosen size is the smallest probed one within {@link EnvSpec#searchKnee} of best throughput.</li>
+ * </ol>
+ * Each probe is a regular test, so its csv goes to the usual place and is reused on restart.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 06:30 PM
+ */
+public class PoolSizeSearch {
+    private static final double goldenRatio = (Math.sqrt(5) - 1) / 2;
+
+    private final DatabaseType databaseType;
+    private final Workload workload;
+    private final int maxPoolSize;
+    private final Map<Integer, TestResult> probes = new TreeMap<>();
+
+    public PoolSizeSearch(final DatabaseType databaseType, final Workload workload, final int maxPoolSize) {
+        this.databaseType = databaseType;
+        this.workload = workload;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * @return chosen pool size, it is also written with all probes into data/&lt;db&gt;/&lt;host&gt;/pool-search-&lt;workload&gt;.txt
+     */
+    public int search() throws IOException {
+        //bracket the knee with exponential probes:
+        int lower = 1;
+        int previous = 0;
+        int size = 1;
+        while (true) {
+            final double score = score(size);
+            if (previous > 0 && score < score(previous) * (1 + EnvSpec.searchGain)) {
+                break;
+            }
+            lower = previous > 0 ? previous : 1;
+            previous = size;
+            if (size == maxPoolSize) {
+                break;
+            }
+            size = Math.min(maxPoolSize, size * 2);
+        }
+        int upper = size;
+
+        //narrow down with golden section search, score is expected to be unimodal within bracket:
+        int left = (int) Math.round(upper - goldenRatio * (upper - lower));
+        int right = (int) Math.round(lower + goldenRatio * (upper - lower));
+        while (upper - lower > 2 && left < right) {
+            if (score(left) >= score(right)) {
+                upper = right;
+            } else {
+                lower = left;
+            }
+            left = (int) Math.round(upper - goldenRatio * (upper - lower));
+            right = (int) Math.round(lower + goldenRatio * (upper - lower));
+        }
+        for (int candidate = lower; candidate <= upper; candidate++) {
+            score(candidate);
+        }
+
+        int best = 0;
+        for (final int probed : probes.keySet()) {
+            if (best == 0 || score(probed) > score(best)) {
+                best = probed;
+            }
+        }
+        int chosen = best;
+        for (final int probed : probes.keySet()) {
+            if (probed < chosen && isWithinLimit(probes.get(probed)) && score(probed) >= EnvSpec.searchKnee * score(best)) {
+                chosen = probed;
+            }
+        }
+        writeSummary(best, chosen);
+        return chosen;
+    }
+
+    /**
+     * @return throughput, penalized in proportion to excess of p99 over the limit (keeps function continuous for search).
+     */
+    private double score(final int size) throws IOException {
+        TestResult result = probes.get(size);
+        if (result == null) {
+            result = TestRunner.runTest(workload.spec(databaseType, size));
+            checkState(result != null, "Test failed: %s %s pool=%s", databaseType, workload, size);
+            probes.put(size, result);
+            System.out.printf("Pool search %s %s: size=%d %s\n", databaseType, workload, size, result);
+        }
+        return isWithinLimit(result)
+                ? result.getOpsPerSecond()
+                : result.getOpsPerSecond() * EnvSpec.searchP99Limit / result.getP99Micros();
+    }
+
+    private static boolean isWithinLimit(final TestResult result) {
+        return result.getP99Micros() <= EnvSpec.searchP99Limit;
+    }
+
+    private void writeSummary(final int best, final int chosen) throws IOException {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("# Pool size search: %s %s, p99 limit %dus, knee at %.0f%% of best throughput\n",
+                databaseType, workload, EnvSpec.searchP99Limit, EnvSpec.searchKnee * 100));
+        for (final Map.Entry<Integer, TestResult> probe : probes.entrySet()) {
+            summary.append(String.format("size=%04d %s%s\n", probe.getKey(), probe.getValue(),
+                    isWithinLimit(probe.getValue()) ? "" : " [p99 over limit]"));
+        }
+        summary.append(String.format("best=%d %.0f ops/sec\n", best, probes.get(best).getOpsPerSecond()));
+        summary.append(String.format("chosen=%d %.0f ops/sec, p99=%.0fus\n", chosen, probes.get(chosen).getOpsPerSecond(), probes.get(chosen).getP99Micros()));
+
+        final File summaryFile = new File(String.format("data/%s/%s/pool-search-%s.txt", databaseType, EnvSpec.hostFor(databaseType), workload));
+        if (!summaryFile.getParentFile().exists()) {
+            checkState(summaryFile.getParentFile().mkdirs());
+        }
+        Files.write(summaryFile.toPath(), summary.toString().getBytes(Charsets.UTF_8));
+        System.out.print(summary);
+    }
+}
@@ -0,0 +1,221 @@
+package org.hobotometr.test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Ordering;
+import org.hobotometr.db.Database;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.PoolOptions;
+import org.hobotometr.db.PoolState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Mass restart of application instances: {@link EnvSpec#startupPools} pools are created at the same moment
+ * against one host, each one runs a point read as soon as it can and then just waits till it is full.
+ * Measured per pool: time to create pool, to first successful query, to full pool, failed connects and queries;
+ * server side connection count is sampled by separate monitor connection during whole {@link EnvSpec#startupSeconds}.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 12:50 AM
+ */
+public class PoolStartup {
+    private static final long sampleMillis = 100;
+
+    private final DatabaseType databaseType;
+    private final String host;
+    private final int poolSize;
+    private final PoolOptions options;
+
+    public PoolStartup(final DatabaseType databaseType, final int poolSize, final PoolOptions options) {
+        this.databaseType = databaseType;
+        this.host = EnvSpec.hostFor(databaseType);
+        this.poolSize = poolSize;
+        this.options = options;
+    }
+
+    /**
+     * Summary and server connections timeline are written into data/&lt;db&gt;/&lt;host&gt;/pool-startup-&lt;pools&gt;x&lt;size&gt;.txt
+     */
+    public void run() throws IOException, InterruptedException {
+        final long windowMillis = TimeUnit.SECONDS.toMillis(EnvSpec.startupSeconds);
+        final List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < EnvSpec.startupPools; i++) {
+            instances.add(new Instance());
+        }
+        final List<long[]> timeline = new ArrayList<>();
+        final Database monitor = databaseType.createConnectionPool(host, 1);
+        try {
+            final long baseline = monitor.countServerConnections();
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> threads = new ArrayList<>();
+            for (final Instance instance : instances) {
+                final Thread thread = new Thread(() -> instance.start(start, windowMillis), "startup-" + threads.size());
+                thread.start();
+                threads.add(thread);
+            }
+            System.out.printf("Start %d pools of %d %s connections (%d connections on server before)\n",
+                    instances.size(), poolSize, databaseType, baseline);
+            final long startNanos = System.nanoTime();
+            start.countDown();
+            for (long elapsed = 0; elapsed < windowMillis; elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)) {
+                long connections;
+                try {
+                    connections = monitor.countServerConnections();
+                } catch (final RuntimeException oops) {
+                    connections = -1; //note [DM] monitor may be refused too when server is out of connections.
+                }
+                timeline.add(new long[]{elapsed, connections});
+                Thread.sleep(Math.max(0, (timeline.size() * sampleMillis) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            writeSummary(baseline, instances, timeline);
+        } finally {
+            for (final Instance instance : instances) {
+                if (instance.database != null) {
+                    instance.database.close();
+                }
+            }
+            monitor.close();
+        }
+    }
+
+    private void writeSummary(final long baseline, final List<Instance> instances, final List<long[]> timeline) throws IOException {
+        final List<Long> createMillis = new ArrayList<>();
+        final List<Long> firstQueryMillis = new ArrayList<>();
+        final List<Long> fullMillis = new ArrayList<>();
+        int notCreated = 0;
+        int notQueried = 0;
+        int notFull = 0;
+        long queryFailures = 0;
+        long connectFailures = 0;
+        boolean connectFailuresKnown = false;
+        for (final Instance instance : instances) {
+            queryFailures += instance.queryFailures;
+            if (instance.database == null) {
+                notCreated++;
+                continue;
+            }
+            createMillis.add(instance.createMillis);
+            if (instance.firstQueryMillis >= 0) {
+                firstQueryMillis.add(instance.firstQueryMillis);
+            } else {
+                notQueried++;
+            }
+            if (instance.fullMillis >= 0) {
+                fullMillis.add(instance.fullMillis);
+            } else {
+                notFull++;
+            }
+            final long failures = instance.database.getConnectFailures();
+            if (failures >= 0) {
+                connectFailuresKnown = true;
+                connectFailures += failures;
+            }
+        }
+
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format("# Pool startup: %s %d pools x %d connections, pool=%s, %d sec window, %d connections on server before\n",
+                databaseType, instances.size(), poolSize, options.getPoolProvider(), EnvSpec.startupSeconds, baseline));
+        summary.append(String.format("%-16s %8s %8s %8s %8s %s\n", "", "p50_ms", "p90_ms", "max_ms", "pools", "missed"));
+        summary.append(distribution("create", createMillis, notCreated));
+        summary.append(distribution("first_query", firstQueryMillis, notQueried));
+        summary.append(distribution("full_pool", fullMillis, notFull));
+        summary.append(String.format("failed queries: %d, failed connects: %s\n", queryFailures, connectFailuresKnown ? connectFailures : "-"));
+        long peak = -1;
+        for (final long[] sample : timeline) {
+            peak = Math.max(peak, sample[1]);
+        }
+        summary.append(String.format("server connections peak: %d\n", peak));
+        summary.append("# pool that can't report its state is counted as missed in full_pool\n");
+        summary.append("# time_ms server_connections\n");
+        for (final long[] sample : timeline) {
+            summary.append(sample[0]).append(' ').append(sample[1]).append('\n');
+        }
+
+        final File summaryFile = new File(String.format("data/%s/%s/pool-startup-%04dx%04d%s.txt", databaseType, host, instances.size(), poolSize,
+                options.getPoolProvider() != PoolOptions.defaults.getPoolProvider() ? "-" + options.getPoolProvider() : ""));
+        if (!summaryFile.getParentFile().exists()) {
+            checkState(summaryFile.getParentFile().mkdirs());
+        }
+        Files.write(summaryFile.toPath(), summary.toString().getBytes(Charsets.UTF_8));
+        System.out.print(summary.substring(0, summary.indexOf("# time_ms")));
+    }
+
+    private static String distribution(final String name, final List<Long> millis, final int missed) {
+        if (millis.isEmpty()) {
+            return String.format("%-16s %8s %8s %8s %8d %d\n", name, "-", "-", "-", 0, missed);
+        }
+        final List<Long> sorted = Ordering.natural().sortedCopy(millis);
+        return String.format("%-16s %8d %8d %8d %8d %d\n", name,
+                sorted.get((sorted.size() - 1) / 2), sorted.get((int) Math.ceil(sorted.size() * 0.9) - 1), sorted.get(sorted.size() - 1),
+                sorted.size(), missed);
+    }
+
+    /**
+     * One restarting application instance, its fields are read after its thread is joined.
+     */
+    private final class Instance {
+        private Database database;
+        private long createMillis = -1;
+        private long firstQueryMillis = -1;
+        private long fullMillis = -1;
+        private long queryFailures = 0;
+
+        void start(final CountDownLatch start, final long windowMillis) {
+            try {
+                start.await();
+            } catch (final InterruptedException e) {
+                return;
+            }
+            final long startNanos = System.nanoTime();
+            try {
+                database = databaseType.createConnectionPool(host, poolSize, options);
+            } catch (final RuntimeException oops) {
+                System.out.println("Pool is not created: " + oops);
+                return;
+            }
+            createMillis = elapsedMillis(startNanos);
+            while (firstQueryMillis < 0 && elapsedMillis(startNanos) < windowMillis) {
+                if (database.selectCpuLite(1, EnvSpec.readRangeDefault)) {
+                    firstQueryMillis = elapsedMillis(startNanos);
+                } else {
+                    queryFailures++;
+                    sleep(10);
+                }
+            }
+            while (elapsedMillis(startNanos) < windowMillis) {
+                final PoolState state = database.getPoolState();
+                if (state == null) {
+                    break;
+                }
+                if (state.getActive() + state.getIdle() >= poolSize) {
+                    fullMillis = elapsedMillis(startNanos);
+                    break;
+                }
+                sleep(10);
+            }
+        }
+
+        private long elapsedMillis(final long startNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        private void sleep(final long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
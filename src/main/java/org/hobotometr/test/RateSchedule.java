@@ -0,0 +1,74 @@
+package org.hobotometr.test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Target rate of open loop test: constant rate during warm up, then linear ramp from
+ * {@link TestSpec#getTargetRate()} to {@link TestSpec#getTargetRateTo()} during tracking.
+ * Rate is split evenly between load threads, each thread paces itself with own {@link Pacer}.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 11:25 AM
+ */
+public class RateSchedule {
+    private final double rateFrom;
+    private final double rateTo;
+    private final long rampNanos;
+    private final int threads;
+    private final Arrival arrival;
+    private volatile long trackingStartNanos = 0;
+
+    public RateSchedule(final TestSpec config, final int threads, final long rampMillis) {
+        this.rateFrom = config.getTargetRate();
+        this.rateTo = config.getTargetRateTo();
+        this.rampNanos = TimeUnit.MILLISECONDS.toNanos(rampMillis);
+        this.threads = threads;
+        this.arrival = config.getArrival();
+    }
+
+    public void startTracking() {
+        this.trackingStartNanos = System.nanoTime();
+    }
+
+    /**
+     * @return total target rate (ops/sec) of all threads at given moment.
+     */
+    public double rateAt(final long nanos) {
+        final long trackingStart = trackingStartNanos;
+        if (trackingStart == 0 || rateFrom == rateTo) {
+            return rateFrom;
+        }
+        final double progress = Math.min(1.0, Math.max(0.0, (nanos - trackingStart) / (double) rampNanos));
+        return rateFrom + (rateTo - rateFrom) * progress;
+    }
+
+    public Pacer newPacer() {
+        return new Pacer();
+    }
+
+    /**
+     * Per thread schedule of intended operation start times.
+     * Latency is measured from intended start, so queueing delay is not omitted when system falls behind.
+     */
+    public final class Pacer {
+        private long intendedStartNanos = System.nanoTime();
+
+        private Pacer() {
+        }
+
+        /**
+         * Wait till next intended start (no wait if thread is behind the schedule).
+         *
+         * @return intended start time of the operation.
+         */
+        public long awaitNext() {
+            intendedStartNanos += arrival.nextIntervalNanos(rateAt(intendedStartNanos) / threads);
+            long delay;
+            while ((delay = intendedStartNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            return intendedStartNanos;
+        }
+    }
+}
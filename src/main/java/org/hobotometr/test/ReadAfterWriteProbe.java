@@ -0,0 +1,65 @@
+package org.hobotometr.test;
+
+import org.hobotometr.db.Database;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replication lag as clients see it: writes unique value of random row to primary, reads it back at once
+ * from a replica (round robin) and counts reads which did not see the write.
+ * Pools are used directly, not through router, so operations per host count load clients only.
+ * Load clients may update same row in between, but it is rare enough (one row of update range per check).
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-19 01:55 AM
+ */
+class ReadAfterWriteProbe implements Runnable {
+    private static final int firstValue = 1_000_000_000; //note [DM] far above values written by load clients.
+
+    private final Database primary;
+    private final List<Database> replicas;
+    private final int updateRange;
+    private final AtomicBoolean stop;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    ReadAfterWriteProbe(final Database primary, final List<Database> replicas, final int updateRange, final AtomicBoolean stop) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.updateRange = updateRange;
+        this.stop = stop;
+    }
+
+    @Override
+    public void run() {
+        int value = firstValue;
+        for (int sequence = 0; !stop.get(); sequence++) {
+            final int id = ThreadLocalRandom.current().nextInt(1, updateRange + 1);
+            value = value == Integer.MAX_VALUE ? firstValue : value + 1;
+            try {
+                primary.updateValue(id, value);
+                checks.increment();
+                if (replicas.get(Math.floorMod(sequence, replicas.size())).selectValue(id) != value) {
+                    stale.increment();
+                }
+            } catch (final RuntimeException oops) {
+                //note [DM] failed operations are already visible in load errors.
+            }
+            try {
+                Thread.sleep(EnvSpec.rawProbeMillis);
+            } catch (final InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return checks and stale reads since previous call.
+     */
+    long[] sample() {
+        return new long[]{checks.sumThenReset(), stale.sumThenReset()};
+    }
+}
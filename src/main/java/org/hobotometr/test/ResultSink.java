@@ -0,0 +1,61 @@
+package org.hobotometr.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where samples of finished tests go.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 09:40 PM
+ */
+public enum ResultSink {
+    /**
+     * File per test: data/&lt;db&gt;/&lt;host&gt;/&lt;spec&gt;.csv, read by report directly.
+     */
+    csv {
+        @Override
+        TestResult find(final String database, final String host, final String spec) throws IOException {
+            final File csvFile = csvFile(database, host, spec);
+            return csvFile.exists() ? TestResult.fromCsv(csvFile) : null;
+        }
+
+        @Override
+        TestResult write(final String database, final String host, final String spec,
+                         final long startMillis, final List<String> columns, final List<long[]> rows) throws IOException {
+            final ResultStore.Run run = new ResultStore.Run(ResultStore.key(database, host, spec), startMillis, columns, rows);
+            run.writeCsv(csvFile(database, host, spec));
+            return run.toResult();
+        }
+    },
+    /**
+     * Single {@link ResultStore} log for all tests, use export suite to get results.json for report.
+     */
+    store {
+        @Override
+        TestResult find(final String database, final String host, final String spec) throws IOException {
+            final ResultStore.Run run = ResultStore.shared().read(ResultStore.key(database, host, spec));
+            return run != null ? run.toResult() : null;
+        }
+
+        @Override
+        TestResult write(final String database, final String host, final String spec,
+                         final long startMillis, final List<String> columns, final List<long[]> rows) throws IOException {
+            ResultStore.shared().append(ResultStore.key(database, host, spec), startMillis, columns, rows);
+            return TestResult.fromSamples(columns, rows, spec);
+        }
+    };
+
+    /**
+     * @return result of already finished test or null.
+     */
+    abstract TestResult find(String database, String host, String spec) throws IOException;
+
+    abstract TestResult write(String database, String host, String spec,
+                              long startMillis, List<String> columns, List<long[]> rows) throws IOException;
+
+    private static File csvFile(final String database, final String host, final String spec) {
+        return new File(String.format("data/%s/%s/%s.csv", database, host, spec));
+    }
+}
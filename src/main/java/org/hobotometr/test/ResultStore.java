@@ -0,0 +1,262 @@
+package org.hobotometr.test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * All test samples in one append only binary log instead of file per test.
+ * <p>
+ * Log ({@code results.bin}) is a sequence of runs, each run is stored column by column,
+ * values of a column are zigzag varint deltas (counters and percentiles change slowly, so most values take 1-2 bytes).
+ * Index ({@code results.idx}) has a line per run: {@code <db>/<host>/<spec> <offset> <length>}, last run of a spec wins.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 09:25 PM
+ */
+public class ResultStore {
+    private static final int runMagic = 0x48425231; //HBR1
+    private static ResultStore shared;
+
+    private final File logFile;
+    private final File indexFile;
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+
+    private ResultStore(final File dir) throws IOException {
+        this.logFile = new File(dir, "results.bin");
+        this.indexFile = new File(dir, "results.idx");
+        if (!dir.exists()) {
+            checkState(dir.mkdirs());
+        }
+        if (indexFile.exists()) {
+            for (final String line : Files.readAllLines(indexFile.toPath(), Charsets.UTF_8)) {
+                final List<String> fields = Splitter.on(' ').omitEmptyStrings().splitToList(line);
+                if (fields.size() == 3) {
+                    index.put(fields.get(0), new long[]{Long.parseLong(fields.get(1)), Long.parseLong(fields.get(2))});
+                }
+            }
+        }
+    }
+
+    /**
+     * @return store under ./data shared by all series (appends are serialized).
+     */
+    public static synchronized ResultStore shared() throws IOException {
+        if (shared == null) {
+            shared = new ResultStore(new File("data"));
+        }
+        return shared;
+    }
+
+    public static String key(final String database, final String host, final String spec) {
+        return database + "/" + host + "/" + spec;
+    }
+
+    public synchronized boolean contains(final String key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized List<String> keys() {
+        return ImmutableList.copyOf(index.keySet());
+    }
+
+    public synchronized void append(final String key, final long startMillis, final List<String> columns, final List<long[]> rows) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + columns.size() * (16 + rows.size() * 2));
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(runMagic);
+        out.writeUTF(key);
+        out.writeLong(startMillis);
+        out.writeShort(columns.size());
+        for (final String column : columns) {
+            out.writeUTF(column);
+        }
+        out.writeInt(rows.size());
+        for (int column = 0; column < columns.size(); column++) {
+            long previous = 0;
+            for (final long[] row : rows) {
+                writeVarLong(out, zigzag(row[column] - previous));
+                previous = row[column];
+            }
+        }
+        out.flush();
+
+        final long offset;
+        try (final RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            offset = log.length();
+            log.seek(offset);
+            log.write(bytes.toByteArray());
+        }
+        Files.write(indexFile.toPath(), (key + " " + offset + " " + bytes.size() + "\n").getBytes(Charsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        index.put(key, new long[]{offset, bytes.size()});
+    }
+
+    /**
+     * @return latest run of given spec or null if there is no such run.
+     */
+    public synchronized Run read(final String key) throws IOException {
+        final long[] position = index.get(key);
+        if (position == null) {
+            return null;
+        }
+        final byte[] bytes = new byte[(int) position[1]];
+        try (final RandomAccessFile log = new RandomAccessFile(logFile, "r")) {
+            log.seek(position[0]);
+            log.readFully(bytes);
+        }
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        checkState(in.readInt() == runMagic, "Corrupted run %s at %s", key, position[0]);
+        checkState(in.readUTF().equals(key), "Index mismatch for %s at %s", key, position[0]);
+        final long startMillis = in.readLong();
+        final List<String> columns = new ArrayList<>();
+        for (int i = in.readShort(); i > 0; i--) {
+            columns.add(in.readUTF());
+        }
+        final List<long[]> rows = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            rows.add(new long[columns.size()]);
+        }
+        for (int column = 0; column < columns.size(); column++) {
+            long previous = 0;
+            for (final long[] row : rows) {
+                row[column] = previous + unzigzag(readVarLong(in));
+                previous = row[column];
+            }
+        }
+        return new Run(key, startMillis, columns, rows);
+    }
+
+    /**
+     * Write runs as csv files of the layout of csv sink (data/&lt;db&gt;/&lt;host&gt;/&lt;spec&gt;.csv), existing files are overwritten.
+     *
+     * @return amount of written files.
+     */
+    public int exportCsv(final File dataDir) throws IOException {
+        for (final String key : keys()) {
+            final File csvFile = new File(dataDir, key + ".csv");
+            if (!csvFile.getParentFile().exists()) {
+                checkState(csvFile.getParentFile().mkdirs());
+            }
+            read(key).writeCsv(csvFile);
+        }
+        return keys().size();
+    }
+
+    /**
+     * Write all runs into single json array read by report (results.json next to csv tree): {@code [{"database", "host", "spec", "dimensions", "start", "columns": {name: [values]}}]}.
+     */
+    public void exportJson(final File jsonFile) throws IOException {
+        try (final Writer out = Files.newBufferedWriter(jsonFile.toPath(), Charsets.UTF_8)) {
+            out.write("[");
+            String separator = "\n";
+            for (final String key : keys()) {
+                out.write(separator);
+                read(key).writeJson(out);
+                separator = ",\n";
+            }
+            out.write("\n]\n");
+        }
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(final DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Samples of one test run.
+     */
+    public static class Run {
+        private final String key;
+        private final long startMillis;
+        private final List<String> columns;
+        private final List<long[]> rows;
+
+        Run(final String key, final long startMillis, final List<String> columns, final List<long[]> rows) {
+            this.key = key;
+            this.startMillis = startMillis;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        public TestResult toResult() {
+            return TestResult.fromSamples(columns, rows, key);
+        }
+
+        void writeCsv(final File csvFile) throws IOException {
+            final StringBuilder csv = new StringBuilder();
+            csv.append('\'').append(Joiner.on("','").join(columns)).append("'\n");
+            for (final long[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    csv.append(i > 0 ? "," : "").append(row[i]);
+                }
+                csv.append('\n');
+            }
+            Files.write(csvFile.toPath(), csv.toString().getBytes(Charsets.UTF_8));
+        }
+
+        void writeJson(final Writer out) throws IOException {
+            final List<String> path = Splitter.on('/').limit(3).splitToList(key);
+            out.write("{\"database\": " + quote(path.get(0)) + ", \"host\": " + quote(path.get(1)) + ", \"spec\": " + quote(path.get(2)));
+            out.write(", \"dimensions\": {");
+            String separator = "";
+            for (final Map.Entry<String, String> dimension : Splitter.on(',').withKeyValueSeparator('=').split(path.get(2)).entrySet()) {
+                out.write(separator + quote(dimension.getKey()) + ": " + quote(dimension.getValue()));
+                separator = ", ";
+            }
+            out.write("}, \"start\": " + startMillis + ", \"columns\": {");
+            for (int column = 0; column < columns.size(); column++) {
+                out.write((column > 0 ? ", " : "") + quote(columns.get(column)) + ": [");
+                for (int i = 0; i < rows.size(); i++) {
+                    out.write((i > 0 ? "," : "") + rows.get(i)[column]);
+                }
+                out.write("]");
+            }
+            out.write("}}");
+        }
+
+        private static String quote(final String value) {
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.hobotometr.test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.KeyDistribution;
+import org.hobotometr.db.PoolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Mixed workload described by a json file instead of code, so production operation mix can be replayed as is:
+ * <pre>
+ * [{"name": "oltp", "clients": 1.5, "writePool": 0.5, "rates": [0, 5000, 20000], "keys": "zipfian_0.99",
+ *   "mix": [{"op": "selectLite", "weight": 80},
+ *           {"op": "updateTiny", "weight": 15},
+ *           {"op": "insert", "weight": 5}]}]
+ * </pre>
+ * Each scenario is expanded into spec per target rate for each pool size of the series:
+ * each client (per shared pool connection) picks operation by weighted random choice on every step, so the mix holds
+ * for any amount of clients, open loop rate is shared by all clients evenly. Reads run on shared pool, writes run on
+ * write pool when {@code writePool} (share of pool size) is set. Optional {@code keys}, {@code arrival}, {@code engine}, {@code pool}
+ * override -D defaults.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 11:35 PM
+ */
+public class Scenario {
+    private static final ImmutableSet<String> scenarioFields = ImmutableSet.of("name", "clients", "writePool", "rates", "arrival", "keys", "engine", "pool", "mix");
+    private static final ImmutableSet<String> mixFields = ImmutableSet.of("op", "weight");
+
+    private final String name;
+    private final double clients;
+    private final double writePool;
+    private final ImmutableList<Integer> rates;
+    private final Arrival arrival;
+    private final KeyDistribution keys;
+    private final LoadEngine engine;
+    private final PoolProvider pool;
+    private final Map<Workload, Double> mix;
+
+    private Scenario(final Map<String, Object> json) {
+        checkArgument(scenarioFields.containsAll(json.keySet()), "Unknown scenario fields: %s, expected: %s", json.keySet(), scenarioFields);
+        this.name = (String) checkNotNull(json.get("name"), "Scenario name is required");
+        this.clients = number(json, "clients", 1.0);
+        this.writePool = number(json, "writePool", 0.0);
+        checkArgument(clients > 0 && writePool >= 0, "Invalid clients/writePool of %s: %s/%s", name, clients, writePool);
+        final ImmutableList.Builder<Integer> rates = ImmutableList.builder();
+        for (final Object rate : list(json, "rates", ImmutableList.<Object>of(0))) {
+            rates.add(((Number) rate).intValue());
+        }
+        this.rates = rates.build();
+        this.arrival = json.containsKey("arrival") ? Arrival.valueOf((String) json.get("arrival")) : EnvSpec.rateArrival;
+        this.keys = json.containsKey("keys") ? KeyDistribution.parse((String) json.get("keys")) : EnvSpec.keys;
+        this.engine = json.containsKey("engine") ? LoadEngine.valueOf((String) json.get("engine")) : EnvSpec.engine;
+        this.pool = json.containsKey("pool") ? PoolProvider.valueOf((String) json.get("pool")) : PoolProvider.hikari;
+        this.mix = new LinkedHashMap<>();
+        for (final Object operation : list(json, "mix", ImmutableList.of())) {
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> entry = (Map<String, Object>) operation;
+            checkArgument(mixFields.containsAll(entry.keySet()), "Unknown mix fields: %s, expected: %s", entry.keySet(), mixFields);
+            final Workload workload = Workload.valueOf((String) checkNotNull(entry.get("op"), "Operation of %s is required", name));
+            final double weight = number(entry, "weight", 1.0);
+            checkArgument(weight >= 0 && !mix.containsKey(workload), "Invalid weight of %s in %s", workload, name);
+            mix.put(workload, weight);
+        }
+        checkArgument(!mix.isEmpty(), "Empty mix of %s", name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return spec per target rate for given pool size.
+     */
+    public List<TestSpec> specs(final DatabaseType databaseType, final int maxPoolSize) {
+        final int totalClients = (int) Math.max(1, Math.round(TestSuiteRunner.clientsFor(maxPoolSize) * clients));
+        final Map<Workload, Double> weights = new LinkedHashMap<>();
+        for (final Map.Entry<Workload, Double> operation : mix.entrySet()) {
+            if (operation.getValue() > 0) {
+                weights.put(operation.getKey(), operation.getValue());
+            }
+        }
+        final List<TestSpec> specs = new ArrayList<>();
+        for (final int rate : rates) {
+            final TestSpec.Builder builder = new TestSpec.Builder()
+                    .setDatabaseType(databaseType)
+                    .setSharedPoolSize(maxPoolSize)
+                    .setWritePoolSize(writePool > 0 ? (int) Math.max(1, Math.round(maxPoolSize * writePool)) : 0)
+                    .setMix(totalClients, weights)
+                    .setKeyDistribution(keys)
+                    .setLoadEngine(engine)
+                    .setPoolProvider(pool);
+            if (rate > 0) {
+                builder.setTargetRate(rate).setArrival(arrival);
+            }
+            specs.add(builder.build());
+        }
+        return specs;
+    }
+
+    /**
+     * @param path scenario file, or classpath resource when file does not exist (e.g. scenarios/mixed.json).
+     */
+    public static List<Scenario> load(final String path) throws IOException {
+        final File file = new File(path);
+        if (file.exists()) {
+            try (final Reader reader = Files.newBufferedReader(file.toPath(), Charsets.UTF_8)) {
+                return parse(reader);
+            }
+        }
+        final InputStream resource = checkNotNull(Scenario.class.getClassLoader().getResourceAsStream(path), "No scenario file: %s", path);
+        try (final Reader reader = new InputStreamReader(resource, Charsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * @param reader json with scenario object or array of scenarios.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Scenario> parse(final Reader reader) throws IOException {
+        try (final JsonParser parser = new JsonFactory().enable(JsonParser.Feature.ALLOW_COMMENTS).createParser(reader)) {
+            final Object json = readValue(parser, parser.nextToken());
+            final List<Scenario> scenarios = new ArrayList<>();
+            for (final Object scenario : json instanceof List ? (List<Object>) json : ImmutableList.of(json)) {
+                checkArgument(scenario instanceof Map, "Scenario must be json object: %s", scenario);
+                scenarios.add(new Scenario((Map<String, Object>) scenario));
+            }
+            return scenarios;
+        }
+    }
+
+    private static Object readValue(final JsonParser parser, final JsonToken token) throws IOException {
+        checkArgument(token != null, "Unexpected end of scenario json");
+        switch (token) {
+            case START_OBJECT:
+                final Map<String, Object> object = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    object.put(field, readValue(parser, parser.nextToken()));
+                }
+                return object;
+            case START_ARRAY:
+                final List<Object> array = new ArrayList<>();
+                for (JsonToken next = parser.nextToken(); next != JsonToken.END_ARRAY; next = parser.nextToken()) {
+                    array.add(readValue(parser, next));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new IllegalArgumentException("Unexpected " + token + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    private static double number(final Map<String, Object> json, final String field, final double byDefault) {
+        final Object value = json.get(field);
+        checkArgument(value == null || value instanceof Number, "Field %s must be a number: %s", field, value);
+        return value != null ? ((Number) value).doubleValue() : byDefault;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(final Map<String, Object> json, final String field, final List<Object> byDefault) {
+        final Object value = json.get(field);
+        checkArgument(value == null || value instanceof List, "Field %s must be an array: %s", field, value);
+        return value != null ? (List<Object>) value : byDefault;
+    }
+
+    @Override
+    public String toString() {
+        return name + mix;
+    }
+}
@@ -0,0 +1,105 @@
+package org.hobotometr.test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Summary of one test, read back from its samples (so finished tests are not re-run to get their results).
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 06:20 PM
+ */
+public class TestResult {
+    private final int seconds;
+    private final double opsPerSecond;
+    private final double errorsPerSecond;
+    private final double p99Micros;
+
+    private TestResult(final int seconds, final double opsPerSecond, final double errorsPerSecond, final double p99Micros) {
+        this.seconds = seconds;
+        this.opsPerSecond = opsPerSecond;
+        this.errorsPerSecond = errorsPerSecond;
+        this.p99Micros = p99Micros;
+    }
+
+    /**
+     * @return read + write operations per second, averaged over tracked seconds.
+     */
+    public double getOpsPerSecond() {
+        return opsPerSecond;
+    }
+
+    public double getErrorsPerSecond() {
+        return errorsPerSecond;
+    }
+
+    /**
+     * @return worst of read and write p99 latency (microseconds), averaged over tracked seconds.
+     */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    static TestResult fromCsv(final File csvFile) throws IOException {
+        final List<String> lines = Files.readAllLines(csvFile.toPath(), Charsets.UTF_8);
+        checkState(lines.size() > 1, "No samples in %s", csvFile);
+        final List<String> header = Splitter.on(',').trimResults().splitToList(lines.get(0).replace("'", ""));
+        final List<long[]> rows = new ArrayList<>();
+        for (final String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            final List<String> values = Splitter.on(',').trimResults().splitToList(line);
+            final long[] row = new long[values.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (long) Double.parseDouble(values.get(i));
+            }
+            rows.add(row);
+        }
+        return fromSamples(header, rows, csvFile);
+    }
+
+    /**
+     * @param columns names of sample values, see {@link TestRunner#columns}.
+     * @param source  where samples come from, for error messages only.
+     */
+    static TestResult fromSamples(final List<String> columns, final List<long[]> rows, final Object source) {
+        final int readOps = columns.indexOf("ReadOps");
+        final int writeOps = columns.indexOf("WriteOps");
+        final int readErrors = columns.indexOf("ReadErr");
+        final int writeErrors = columns.indexOf("WriteErr");
+        final int readP99 = columns.indexOf("ReadP99");
+        final int writeP99 = columns.indexOf("WriteP99");
+        int seconds = 0;
+        double ops = 0;
+        double errors = 0;
+        double p99 = 0;
+        for (final long[] values : rows) {
+            seconds++;
+            ops += values[readOps] + values[writeOps];
+            errors += values[readErrors] + values[writeErrors];
+            if (readP99 >= 0 && writeP99 >= 0) { //note [DM] older csv files have no latency columns.
+                p99 += Math.max(values[readP99], values[writeP99]);
+            }
+        }
+        checkState(seconds > 0, "No samples in %s", source);
+        return new TestResult(seconds, ops / seconds, errors / seconds, p99 / seconds);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.0f ops/sec, %.0f err/sec, p99=%.0fus (%d sec)", opsPerSecond, errorsPerSecond, p99Micros, seconds);
+    }
+}
@@ -1,13 +1,36 @@
 package org.hobotometr.test;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.hobotometr.db.AsyncDatabase;
+import org.hobotometr.db.CachingDatabase;
 import org.hobotometr.db.Database;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.Payloads;
+import org.hobotometr.db.PoolState;
+import org.hobotometr.db.RoutingDatabase;
+import org.hobotometr.db.RowCache;
+import org.hobotometr.db.ScanResult;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -16,193 +39,562 @@ import static com.google.common.base.Preconditions.checkState;
  *         Created: 2014-09-14 12:38 AM
  */
 public class TestRunner {
-    private static boolean javaWarmed = false;
-
-    public static void runTest(final TestSpec config) {
+    private static final int trackingSeconds = 60;
+    /**
+     * Values of each per second sample.
+     */
+    static final ImmutableList<String> columns = ImmutableList.of("Time", "ReadOps", "ReadErr", "WriteOps", "WriteErr",
+            "ReadP50", "ReadP90", "ReadP99", "ReadP999", "ReadMax",
+            "WriteP50", "WriteP90", "WriteP99", "WriteP999", "WriteMax", "TargetRate",
+            "PoolWaitP50", "PoolWaitP99", "PoolWaitMax", "ReadRows", "WriteRows", "ClientCpuMs",
+            "QueryP50", "QueryP99", "QueryMax",
+            "PoolActive", "PoolIdle", "PoolWaiting", "ConnCreated", "ConnCreateP99", "ConnCreateMax",
+            "GcCount", "GcTimeMs", "HeapUsedMb", "OldGenUsedMb", "ClientAllocKb", "RawChecks", "RawStale",
+            "CacheHits", "CacheMisses", "CacheEvictions", "CacheSize", "ReadBytes");
+    /**
+     * Databases warmed since JVM start (drivers and their hot paths are JIT compiled), parallel series update it concurrently.
+     */
+    private static final Set<DatabaseType> javaWarmed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return result of the test (read back from {@link EnvSpec#results}, so already finished test is not run again) or null if test failed.
+     */
+    public static TestResult runTest(final TestSpec config) {
         try {
-            runTestImpl(config);
+            return runTestImpl(config);
         } catch (final Exception oops) {
             oops.printStackTrace();
+            return null;
         }
     }
 
-    private static void runTestImpl(final TestSpec config) throws InterruptedException, IOException {
+    private static TestResult runTestImpl(final TestSpec config) throws InterruptedException, IOException {
         final String testName = config.toString()+(EnvSpec.yield?",yield=1":"");
-        final File csvFile = new File(String.format("data/%s/%s/%s.csv", config.getDatabaseType(), EnvSpec.host, config.toString()));
-        if (csvFile.exists()) {
-            return;
+        final String host = EnvSpec.hostFor(config.getDatabaseType());
+        final TestResult finished = EnvSpec.results.find(config.getDatabaseType().name(), host, config.toString());
+        if (finished != null) {
+            return finished;
         }
-        if (javaWarmed){
+        final boolean warmed = javaWarmed.contains(config.getDatabaseType());
+        if (warmed){
             Thread.sleep(EnvSpec.freeTime);
         }
 
 
-        final Database sharedTestQueries = config.getDatabaseType().createConnectionPool(EnvSpec.host, config.getSharedPoolSize());
-        final Database writeTestQueries = config.getWritePoolSize() > 0
-                ? config.getDatabaseType().createConnectionPool(EnvSpec.host, config.getWritePoolSize())
-                : sharedTestQueries;
-
-        sharedTestQueries.init();
+        final ThreadGroup clientsGroup = new ThreadGroup("load-" + config.getDatabaseType());
+        final AsyncDatabase sharedAsyncQueries = config.isAsync() ? createAsyncConnectionPool(config, host, config.getSharedPoolSize(), clientsGroup) : null;
+        final AsyncDatabase writeAsyncQueries = config.isAsync() && config.getWritePoolSize() > 0
+                ? createAsyncConnectionPool(config, host, config.getWritePoolSize(), clientsGroup)
+                : sharedAsyncQueries;
+        final List<String> replicaHosts = config.isRouted() ? EnvSpec.replicasFor(config.getDatabaseType()) : ImmutableList.<String>of();
+        checkState(!config.isRouted() || !replicaHosts.isEmpty(), "No replicas of %s, see -Dreplicas", config.getDatabaseType());
+        if (!config.isAsync()) { //note [DM] close pools this test won't reuse before opening new ones.
+            WarmPools.closeOthers(config.getDatabaseType(), host, config.getPoolOptions(), config.getSharedPoolSize(), config.getWritePoolSize());
+            for (final String replicaHost : replicaHosts) {
+                WarmPools.closeOthers(config.getDatabaseType(), replicaHost, config.getPoolOptions(), config.getSharedPoolSize());
+            }
+        }
+        final RoutingDatabase router = config.isRouted() ? createRouter(config, host, replicaHosts) : null;
+        final Database sharedPool = router != null ? router : sharedAsyncQueries != null
+                ? sharedAsyncQueries
+                : WarmPools.acquire(config.getDatabaseType(), host, config.getSharedPoolSize(), config.getPoolOptions());
+        final Database writePool = router != null ? router : writeAsyncQueries != null ? writeAsyncQueries : config.getWritePoolSize() > 0
+                ? WarmPools.acquire(config.getDatabaseType(), host, config.getWritePoolSize(), config.getPoolOptions())
+                : sharedPool;
+        final RowCache cache = config.isCached() ? new RowCache(config.getCacheSize(), config.getCacheTtlSeconds(), config.getCacheWrites()) : null;
+        final Database sharedTestQueries = cache != null ? new CachingDatabase(sharedPool, cache) : sharedPool;
+        final Database writeTestQueries = cache != null && writePool != sharedPool ? new CachingDatabase(writePool, cache)
+                : writePool != sharedPool ? writePool : sharedTestQueries;
+
+        if (!config.isAsync()) {
+            sharedTestQueries.init();
+        }
+        if (EnvSpec.poolPrefill) {
+            sharedTestQueries.prefill();
+            if (writeTestQueries != sharedTestQueries) {
+                writeTestQueries.prefill();
+            }
+        }
+        sharedTestQueries.setKeyDistribution(config.getKeyDistribution());
+        writeTestQueries.setKeyDistribution(config.getKeyDistribution());
 
 
-        final AtomicInteger readProgress = new AtomicInteger();
-        final AtomicInteger readFailures = new AtomicInteger();
-        final AtomicInteger writeProgress = new AtomicInteger();
-        final AtomicInteger writeFailures = new AtomicInteger();
+        final int probesPerClient = Math.max(1, config.getAsyncInFlight());
+        final LoadStats readStats = new LoadStats("read", config.getReadThreads() * probesPerClient + config.getMixClients());
+        final LoadStats writeStats = new LoadStats("write", config.getWriteThreads() * probesPerClient + config.getMixClients());
+        final Histogram poolWait = new Histogram(LoadStats.highestTrackableMicros, LoadStats.significantDigits);
+        poolWait.setTag("pool-wait");
+        final Histogram queryTime = new Histogram(LoadStats.highestTrackableMicros, LoadStats.significantDigits);
+        queryTime.setTag("query");
+        final Histogram connectTime = new Histogram(LoadStats.highestTrackableMicros, LoadStats.significantDigits);
+        connectTime.setTag("connect");
 
         final AtomicBoolean stop = new AtomicBoolean(false);
+        final RateSchedule rateSchedule = config.isOpenLoop()
+                ? new RateSchedule(config, config.getReadThreads() + config.getWriteThreads() + config.getMixClients(), TimeUnit.SECONDS.toMillis(trackingSeconds))
+                : null;
+
+        final List<LoadClient> clients = new ArrayList<>();
+        final AsyncLoad asyncLoad = config.isAsync() ? new AsyncLoad(config.getAsyncInFlight(), stop) : null;
 
-        abstract class AbstractLoadThread extends Thread {
-            protected final AtomicInteger successCounter;
-            protected final AtomicInteger failuresCounter;
+        abstract class LoadOperation {
+            final boolean read;
 
-            AbstractLoadThread(final AtomicInteger successCounter, final AtomicInteger failuresCounter) {
-                this.successCounter = successCounter;
-                this.failuresCounter = failuresCounter;
+            LoadOperation(final boolean read) {
+                this.read = read;
             }
 
-            @Override
-            public void run() {
-                while (!stop.get()) {
-                    if (perform()) {
-                        successCounter.incrementAndGet();
+            abstract boolean perform();
+
+            int rowsPerOp() {
+                return config.getPipelineDepth();
+            }
+
+            long bytesPerOp() {
+                return 0;
+            }
+        }
+
+        final Function<Workload, LoadOperation> operations = workload -> {
+            switch (workload) {
+                case selectLite:
+                    return new LoadOperation(true) {
+                        @Override
+                        boolean perform() {
+                            return sharedTestQueries.selectCpuLite(1, config.getReadRange());
+                        }
+                    };
+                case selectHeavy:
+                    return new LoadOperation(true) {
+                        @Override
+                        boolean perform() {
+                            return sharedTestQueries.selectCpuHeavy(1, config.getReadRange(), config.getReadSize());
+                        }
+                    };
+                case scan:
+                    return new LoadOperation(true) {
+                        private ScanResult last; //note [DM] accessed by load thread only.
+
+                        @Override
+                        boolean perform() {
+                            last = sharedTestQueries.scan(config.getScanQuery(), 1, config.getReadRange(), config.getReadSize(), config.getFetchSize());
+                            return last != null;
+                        }
+
+                        @Override
+                        int rowsPerOp() {
+                            return last != null ? (int) last.getRows() : 0;
+                        }
+
+                        @Override
+                        long bytesPerOp() {
+                            return last != null ? last.getBytes() : 0;
+                        }
+                    };
+                case insert:
+                    return new LoadOperation(false) {
+                        @Override
+                        boolean perform() {
+                            return config.getBatchSize() > 1 ? writeTestQueries.insertBatch(config.getBatchSize()) : writeTestQueries.insert();
+                        }
+
+                        @Override
+                        int rowsPerOp() {
+                            return config.getBatchSize() > 1 ? config.getBatchSize() : config.getPipelineDepth();
+                        }
+                    };
+                case updateTiny:
+                    return new LoadOperation(false) {
+                        private int batchRows; //note [DM] distinct ids of last batch, accessed by load thread only.
+
+                        @Override
+                        boolean perform() {
+                            if (config.getBatchSize() > 1) {
+                                batchRows = writeTestQueries.updateTinyColumnByIdBatch(1, config.getUpdateRange(), config.getBatchSize());
+                                return batchRows >= 0;
+                            }
+                            return writeTestQueries.updateTinyColumnById(1, config.getUpdateRange());
+                        }
+
+                        @Override
+                        int rowsPerOp() {
+                            return config.getBatchSize() > 1 ? Math.max(0, batchRows) : config.getPipelineDepth();
+                        }
+                    };
+                case updateWide:
+                    return new LoadOperation(false) {
+                        @Override
+                        boolean perform() {
+                            return writeTestQueries.updateWideColumnById(1, config.getUpdateRange());
+                        }
+                    };
+                default:
+                    throw new IllegalArgumentException("Unsupported workload: " + workload);
+            }
+        };
+
+        /**
+         * Runs single operation, or operation of {@link TestSpec#getMix()} picked by weight on each step.
+         */
+        class OperationLoadClient implements LoadClient {
+            private final RateSchedule.Pacer pacer = rateSchedule != null ? rateSchedule.newPacer() : null;
+            private final LoadOperation[] mixOperations;
+            private final LoadStats.Probe[] mixProbes;
+            private final double[] mixWeights; //note [DM] cumulative.
+
+            OperationLoadClient(final Map<Workload, Double> mix) {
+                this.mixOperations = new LoadOperation[mix.size()];
+                this.mixProbes = new LoadStats.Probe[mix.size()];
+                this.mixWeights = new double[mix.size()];
+                LoadStats.Probe readProbe = null;
+                LoadStats.Probe writeProbe = null;
+                double weights = 0;
+                int i = 0;
+                for (final Map.Entry<Workload, Double> operation : mix.entrySet()) {
+                    mixOperations[i] = operations.apply(operation.getKey());
+                    if (mixOperations[i].read) {
+                        mixProbes[i] = readProbe = readProbe != null ? readProbe : readStats.newProbe();
                     } else {
-                        failuresCounter.incrementAndGet();
-                    }
-                    if (EnvSpec.yield){
-                        yield();
+                        mixProbes[i] = writeProbe = writeProbe != null ? writeProbe : writeStats.newProbe();
                     }
+                    weights += operation.getValue();
+                    mixWeights[i++] = weights;
                 }
+                clients.add(this);
             }
 
-            abstract boolean perform();
-        }
-
-        abstract class AbstractReadLoadThread extends AbstractLoadThread {
-            protected AbstractReadLoadThread() {
-                super(readProgress, readFailures);
+            OperationLoadClient(final Workload workload) {
+                this(ImmutableMap.of(workload, 1.0));
             }
-        }
 
-        abstract class AbstractWriteLoadThread extends AbstractLoadThread {
-            protected AbstractWriteLoadThread() {
-                super(writeProgress, writeFailures);
+            @Override
+            public void step() {
+                //note [DM] in open loop mode latency includes time spent behind the schedule (no coordinated omission).
+                final long startNanos = pacer != null ? pacer.awaitNext() : System.nanoTime();
+                int i = 0;
+                if (mixWeights.length > 1) {
+                    final double choice = ThreadLocalRandom.current().nextDouble(mixWeights[mixWeights.length - 1]);
+                    while (mixWeights[i] <= choice) {
+                        i++;
+                    }
+                }
+                final boolean success = mixOperations[i].perform();
+                mixProbes[i].record(success, mixOperations[i].rowsPerOp(), mixOperations[i].bytesPerOp(), System.nanoTime() - startNanos);
+                if (EnvSpec.yield){
+                    Thread.yield();
+                }
             }
         }
 
         for (int i = 0; i < config.getReadLiteCpuThreads(); i++) {
-            new AbstractReadLoadThread() {
-                @Override
-                boolean perform() {
-                    return sharedTestQueries.selectCpuLite(1, config.getReadRange());
-                }
-            }.start();
+            if (asyncLoad != null) {
+                asyncLoad.addClient(readStats, config.getPipelineDepth(), () -> sharedAsyncQueries.selectCpuLiteAsync(1, config.getReadRange()));
+            } else {
+                new OperationLoadClient(Workload.selectLite);
+            }
         }
 
         for (int i = 0; i < config.getReadHeavyCpuThreads(); i++) {
-            new AbstractReadLoadThread() {
-                @Override
-                boolean perform() {
-                    return sharedTestQueries.selectCpuHeavy(1, config.getReadRange(), config.getReadSize());
-                }
-            }.start();
+            if (asyncLoad != null) {
+                asyncLoad.addClient(readStats, config.getPipelineDepth(), () -> sharedAsyncQueries.selectCpuHeavyAsync(1, config.getReadRange(), config.getReadSize()));
+            } else {
+                new OperationLoadClient(Workload.selectHeavy);
+            }
+        }
+
+        for (int i = 0; i < config.getReadScanThreads(); i++) {
+            new OperationLoadClient(Workload.scan);
         }
 
         for (int i = 0; i < config.getWriteInsertThreads(); i++) {
-            new AbstractWriteLoadThread() {
-                @Override
-                boolean perform() {
-                    return writeTestQueries.insert();
-                }
-            }.start();
+            if (asyncLoad != null) {
+                asyncLoad.addClient(writeStats, config.getPipelineDepth(), writeAsyncQueries::insertAsync);
+            } else {
+                new OperationLoadClient(Workload.insert);
+            }
         }
 
         for (int i = 0; i < config.getWriteUpdateTinyThreads(); i++) {
-            new AbstractWriteLoadThread() {
-                @Override
-                boolean perform() {
-                    return writeTestQueries.updateTinyColumnById(1, config.getUpdateRange());
-                }
-            }.start();
+            if (asyncLoad != null) {
+                asyncLoad.addClient(writeStats, config.getPipelineDepth(), () -> writeAsyncQueries.updateTinyColumnByIdAsync(1, config.getUpdateRange()));
+            } else {
+                new OperationLoadClient(Workload.updateTiny);
+            }
         }
 
         for (int i = 0; i < config.getWriteUpdateWideThreads(); i++) {
-            new AbstractWriteLoadThread() {
-                @Override
-                boolean perform() {
-                    return writeTestQueries.updateWideColumnById(1, config.getUpdateRange());
-                }
-            }.start();
+            if (asyncLoad != null) {
+                asyncLoad.addClient(writeStats, config.getPipelineDepth(), () -> writeAsyncQueries.updateWideColumnByIdAsync(1, config.getUpdateRange()));
+            } else {
+                new OperationLoadClient(Workload.updateWide);
+            }
         }
 
+        for (int i = 0; i < config.getMixClients(); i++) {
+            new OperationLoadClient(config.getMix());
+        }
 
-        if (javaWarmed) {
+        final ClientCpuMeter clientCpu = new ClientCpuMeter(clientsGroup);
+        final JvmMeter jvm = new JvmMeter(clientsGroup);
+        final ExecutorService load = config.getLoadEngine().start(clientsGroup, clients, stop);
+        if (asyncLoad != null) {
+            asyncLoad.start(clientsGroup);
+        }
+        final ReadAfterWriteProbe readAfterWrite = router != null ? new ReadAfterWriteProbe(router.getPrimary(), router.getReplicas(), config.getUpdateRange(), stop) : null;
+        if (readAfterWrite != null) {
+            new Thread(clientsGroup, readAfterWrite, clientsGroup.getName() + "-raw").start();
+        }
+
+        final WarmupController warmup = EnvSpec.adaptive ? new WarmupController(readStats, writeStats) : null;
+        if (warmup != null) {
+            System.out.println("Warm up " + config.getDatabaseType() + " till steady state (max " + (warmed ? 30 : 60) + " sec)");
+            warmup.awaitSteadyState(warmed ? 5 : 15, warmed ? 30 : 60);
+        } else if (warmed) {
             Thread.sleep(15000);
         } else {
-            System.out.println("Warm JVM (40 sec)");
+            System.out.println("Warm JVM for " + config.getDatabaseType() + " (40 sec)");
             Thread.sleep(40000);
-            javaWarmed = true;
+        }
+        if (!warmed) {
+            javaWarmed.add(config.getDatabaseType());
+            System.out.printf("Arguments generator allocates %.2f bytes/op\n", Payloads.measureAllocatedBytesPerOp(config.getKeyDistribution(), 1_000_000));
         }
 
-        final StringBuilder csv = new StringBuilder("'Time','ReadOps','ReadErr','WriteOps','WriteErr'\n");
+        final List<long[]> samples = new ArrayList<>();
+        final File testDir = new File(String.format("data/%s/%s", config.getDatabaseType(), host));
+        if (!testDir.exists()) {
+            checkState(testDir.mkdirs());
+        }
+        final File histogramFile = new File(testDir, config.toString() + ".hlog");
+        final HistogramLogWriter histogramLog = new HistogramLogWriter(histogramFile);
+        final StringBuilder hostOps = router != null
+                ? new StringBuilder("# operations per second sent to each host\nTime " + Joiner.on(' ').join(router.getHosts()) + "\n")
+                : null;
+
+        if (!EnvSpec.parallel) { //note [DM] full gc would pause tests of other databases.
+            System.gc(); //cleanup heap before test.
+            Thread.sleep(10); //wait a bit after gc.
+        }
 
-        System.gc(); //cleanup heap before test.
-        Thread.sleep(10); //wait a bit after gc.
+        //start tracking, counters are never reset: each sample is a delta to previous snapshot.
+        final long trackingStartMillis = System.currentTimeMillis();
+        histogramLog.outputComment("Latency of " + config.getDatabaseType() + " operations in microseconds: " + testName);
+        histogramLog.outputLogFormatVersion();
+        histogramLog.outputStartTime(trackingStartMillis);
+        histogramLog.setBaseTime(trackingStartMillis);
+        histogramLog.outputLegend();
+        readStats.sample(trackingStartMillis, trackingStartMillis); //drop values recorded during warm up.
+        writeStats.sample(trackingStartMillis, trackingStartMillis);
+        sampleDatabases(poolWait, sharedTestQueries, writeTestQueries, Database::getIntervalPoolWait);
+        sampleDatabases(queryTime, sharedTestQueries, writeTestQueries, Database::getIntervalQueryTime);
+        sampleDatabases(connectTime, sharedTestQueries, writeTestQueries, Database::getIntervalConnectTime);
+        clientCpu.sampleMillis();
+        jvm.sample();
+        if (router != null) {
+            router.takeIntervalOps();
+            readAfterWrite.sample();
+        }
+        if (cache != null) {
+            cache.sample();
+        }
+        if (rateSchedule != null) {
+            rateSchedule.startTracking();
+        }
 
-        //start tracking:
+        final FlightRecording flightRecording = EnvSpec.jfr ? FlightRecording.start(new File(testDir, config.toString() + ".jfr")) : null;
         System.out.println("Start tracking ("+config.getDatabaseType()+"): " + testName);
-        for (int time = 0; time < 60; time++) {
-            if (EnvSpec.forceGcDuringTest) {
+        long secondStart = trackingStartMillis;
+        for (int time = 0; time < trackingSeconds; time++) {
+            if (EnvSpec.forceGcDuringTest && !EnvSpec.parallel) {
                 if (time % 10 == 0) {
                     //cleanup environment:
                     System.gc();
-                    for (final AtomicInteger reset : new AtomicInteger[]{readProgress, readFailures, writeProgress, writeFailures}) {
-                        reset.set(0);
-                    }
                 }
             }
 
-
-            //reset counters before test.
-            readProgress.set(0);
-            readFailures.set(0);
-            writeProgress.set(0);
-            writeFailures.set(0);
-
-            //actual test step:
-            final long secondStart = System.currentTimeMillis();
-            Thread.sleep(1000);
-            final double duration = (System.currentTimeMillis() - secondStart) / 1000.0;
+            //actual test step, sleep till the end of current second to avoid drift:
+            Thread.sleep(Math.max(0, trackingStartMillis + (time + 1) * 1000L - System.currentTimeMillis()));
+            final long secondEnd = System.currentTimeMillis();
+            final double duration = (secondEnd - secondStart) / 1000.0;
 
             //fetch metrics after test:
-            final int readOpsSnapshot = readProgress.get();
-            final int readErrorsSnapshot = readFailures.get();
-            final int writeOpsSnapshot = writeProgress.get();
-            final int writeErrorsSnapshot = writeFailures.get();
+            readStats.sample(secondStart, secondEnd);
+            writeStats.sample(secondStart, secondEnd);
+            final long readOpsSnapshot = readStats.getIntervalOps();
+            final long readErrorsSnapshot = readStats.getIntervalErrors();
+            final long writeOpsSnapshot = writeStats.getIntervalOps();
+            final long writeErrorsSnapshot = writeStats.getIntervalErrors();
+            final Histogram readLatency = readStats.getIntervalLatency();
+            histogramLog.outputIntervalHistogram(readLatency);
+            final Histogram writeLatency = writeStats.getIntervalLatency();
+            histogramLog.outputIntervalHistogram(writeLatency);
+            sampleDatabases(poolWait, sharedTestQueries, writeTestQueries, Database::getIntervalPoolWait);
+            poolWait.setStartTimeStamp(secondStart);
+            poolWait.setEndTimeStamp(secondEnd);
+            histogramLog.outputIntervalHistogram(poolWait);
+            sampleDatabases(queryTime, sharedTestQueries, writeTestQueries, Database::getIntervalQueryTime);
+            queryTime.setStartTimeStamp(secondStart);
+            queryTime.setEndTimeStamp(secondEnd);
+            histogramLog.outputIntervalHistogram(queryTime);
+            sampleDatabases(connectTime, sharedTestQueries, writeTestQueries, Database::getIntervalConnectTime);
+            connectTime.setStartTimeStamp(secondStart);
+            connectTime.setEndTimeStamp(secondEnd);
+            histogramLog.outputIntervalHistogram(connectTime);
+            final long[] poolState = samplePoolState(sharedTestQueries, writeTestQueries);
+            secondStart = secondEnd;
+            final long clientCpuMillis = clientCpu.sampleMillis();
+            final long[] jvmSample = jvm.sample();
+            final long[] rawSample = readAfterWrite != null ? readAfterWrite.sample() : new long[]{-1, -1};
+            final long[] cacheSample = cache != null ? cache.sample() : new long[]{-1, -1, -1, -1};
+            if (router != null) {
+                hostOps.append(time).append(' ').append(Joiner.on(' ').join(Longs.asList(router.takeIntervalOps()))).append('\n');
+            }
+            final long targetRate = rateSchedule != null ? Math.round(rateSchedule.rateAt(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(500))) : 0;
 
             //render and print metrics:
-            System.out.printf("T %4d, R %5d/%5d, W %5d/%5d, dur=%.3f, Pools(%d/%d)\n",
+            System.out.printf("%sT %4d, R %5d/%5d p99=%dus, W %5d/%5d rows=%d p99=%dus, dur=%.3f, cpu=%dms, gc=%d/%dms, Pools(%d/%d) wait p99=%dus, query p99=%dus, active/idle/waiting=%d/%d/%d%s\n",
+                    EnvSpec.parallel ? config.getDatabaseType() + " " : "",
                     time,
-                    readOpsSnapshot, readErrorsSnapshot,
-                    writeOpsSnapshot, writeErrorsSnapshot,
-                    duration,
-                    config.getSharedPoolSize(), config.getWritePoolSize());
-            csv.append(String.format("%d,%d,%d,%d,%d\n", time, readOpsSnapshot, readErrorsSnapshot, writeOpsSnapshot, writeErrorsSnapshot));
+                    readOpsSnapshot, readErrorsSnapshot, readLatency.getValueAtPercentile(99.0),
+                    writeOpsSnapshot, writeErrorsSnapshot, writeStats.getIntervalRows(), writeLatency.getValueAtPercentile(99.0),
+                    duration, clientCpuMillis, jvmSample[0], jvmSample[1],
+                    config.getSharedPoolSize(), config.getWritePoolSize(), poolWait.getValueAtPercentile(99.0), queryTime.getValueAtPercentile(99.0),
+                    poolState[0], poolState[1], poolState[2],
+                    (rateSchedule != null ? ", rate=" + targetRate : "") + (router != null ? ", stale=" + rawSample[1] + "/" + rawSample[0] : "")
+                            + (cache != null ? String.format(", cache hit=%.1f%% evicted=%d", 100.0 * cacheSample[0] / Math.max(1, cacheSample[0] + cacheSample[1]), cacheSample[2]) : "")
+                            + (config.getReadScanThreads() > 0 ? String.format(", scan rows=%d %.1fMB", readStats.getIntervalRows(), readStats.getIntervalBytes() / 1e6) : ""));
+            final long[] sample = {time, readOpsSnapshot, readErrorsSnapshot, writeOpsSnapshot, writeErrorsSnapshot,
+                    readLatency.getValueAtPercentile(50.0), readLatency.getValueAtPercentile(90.0), readLatency.getValueAtPercentile(99.0),
+                    readLatency.getValueAtPercentile(99.9), readLatency.getMaxValue(),
+                    writeLatency.getValueAtPercentile(50.0), writeLatency.getValueAtPercentile(90.0), writeLatency.getValueAtPercentile(99.0),
+                    writeLatency.getValueAtPercentile(99.9), writeLatency.getMaxValue(),
+                    targetRate,
+                    poolWait.getValueAtPercentile(50.0), poolWait.getValueAtPercentile(99.0), poolWait.getMaxValue(),
+                    readStats.getIntervalRows(), writeStats.getIntervalRows(), clientCpuMillis,
+                    queryTime.getValueAtPercentile(50.0), queryTime.getValueAtPercentile(99.0), queryTime.getMaxValue(),
+                    poolState[0], poolState[1], poolState[2],
+                    connectTime.getTotalCount(), connectTime.getValueAtPercentile(99.0), connectTime.getMaxValue(),
+                    jvmSample[0], jvmSample[1], jvmSample[2], jvmSample[3], jvmSample[4],
+                    rawSample[0], rawSample[1],
+                    cacheSample[0], cacheSample[1], cacheSample[2], cacheSample[3],
+                    readStats.getIntervalBytes()};
+            samples.add(sample);
+            LiveMetrics.publish(config.getDatabaseType().name(), host, config.toString(), sample);
+            //note [DM] rate ramp is defined over whole tracking period, so it is never cut.
+            if (warmup != null && config.getTargetRateTo() == config.getTargetRate()
+                    && warmup.addTrackedSample(readOpsSnapshot + writeOpsSnapshot)) {
+                break;
+            }
         }
 
-        if (!csvFile.getParentFile().exists()) {
-            checkState(csvFile.getParentFile().mkdirs());
+        LiveMetrics.finish(config.getDatabaseType().name(), host, config.toString());
+        histogramLog.close();
+        if (hostOps != null) {
+            Files.write(new File(testDir, config.toString() + ".hosts.txt").toPath(), hostOps.toString().getBytes(Charsets.UTF_8));
+        }
+        if (flightRecording != null) {
+            flightRecording.close();
         }
-        Files.write(csvFile.toPath(), csv.toString().getBytes(Charsets.UTF_8));
+        final TestResult result = EnvSpec.results.write(config.getDatabaseType().name(), host, config.toString(), trackingStartMillis, columns, samples);
         System.out.println("Done");
 
         //cleanup after test
         stop.set(true);
-        Thread.sleep(500);
+        LoadEngine.awaitStop(load, TimeUnit.SECONDS.toMillis(5));
+        if (asyncLoad != null) {
+            asyncLoad.awaitStop(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        if (router != null) {
+            WarmPools.release(config.getDatabaseType(), host, primaryPoolSize(config), config.getPoolOptions(), router.getPrimary());
+            for (int i = 0; i < replicaHosts.size(); i++) {
+                WarmPools.release(config.getDatabaseType(), replicaHosts.get(i), config.getSharedPoolSize(), config.getPoolOptions(), router.getReplicas().get(i));
+            }
+        } else if (config.isAsync()) {
+            sharedPool.close();
+            if (writePool != sharedPool) {
+                writePool.close();
+            }
+        } else { //note [DM] cache decorators are dropped, pools under them are kept warm.
+            WarmPools.release(config.getDatabaseType(), host, config.getSharedPoolSize(), config.getPoolOptions(), sharedPool);
+            if (writePool != sharedPool) {
+                WarmPools.release(config.getDatabaseType(), host, config.getWritePoolSize(), config.getPoolOptions(), writePool);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes go to primary pool (of write pool size, if it is set), reads go to replica pools of shared pool size.
+     */
+    private static RoutingDatabase createRouter(final TestSpec config, final String host, final List<String> replicaHosts) {
+        final Database primary = WarmPools.acquire(config.getDatabaseType(), host, primaryPoolSize(config), config.getPoolOptions());
+        final List<Database> replicas = new ArrayList<>();
+        for (final String replicaHost : replicaHosts) {
+            replicas.add(WarmPools.acquire(config.getDatabaseType(), replicaHost, config.getSharedPoolSize(), config.getPoolOptions()));
+        }
+        return new RoutingDatabase(config.getReplicaBalancing(), host, primary, replicaHosts, replicas);
+    }
+
+    private static int primaryPoolSize(final TestSpec config) {
+        return config.getWritePoolSize() > 0 ? config.getWritePoolSize() : config.getSharedPoolSize();
+    }
 
-        sharedTestQueries.close();
-        if (writeTestQueries != sharedTestQueries) {
-            writeTestQueries.close();
+    /**
+     * Async drivers start event loop threads on demand: pool is created and initialized from a thread of clients group,
+     * so these threads inherit the group and {@link ClientCpuMeter} accounts them as client threads.
+     */
+    private static AsyncDatabase createAsyncConnectionPool(final TestSpec config, final String host, final int poolSize,
+                                                           final ThreadGroup clientsGroup) throws InterruptedException {
+        final AtomicReference<AsyncDatabase> result = new AtomicReference<>();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Thread creator = new Thread(clientsGroup, () -> {
+            try {
+                final AsyncDatabase database = config.getDatabaseType().createAsyncConnectionPool(host, poolSize, config.getPoolOptions());
+                database.init();
+                result.set(database);
+            } catch (final RuntimeException oops) {
+                failure.set(oops);
+            }
+        }, clientsGroup.getName() + "-init");
+        creator.start();
+        creator.join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    /**
+     * @return active, idle and waiting summed over pools, -1 each when pools don't track their state.
+     */
+    private static long[] samplePoolState(final Database sharedTestQueries, final Database writeTestQueries) {
+        final long[] result = {-1, -1, -1};
+        for (final Database database : new Database[]{sharedTestQueries, writeTestQueries}) {
+            final PoolState state = database.getPoolState();
+            if (state != null) {
+                result[0] = Math.max(0, result[0]) + state.getActive();
+                result[1] = Math.max(0, result[1]) + state.getIdle();
+                result[2] = Math.max(0, result[2]) + state.getWaiting();
+            }
+            if (writeTestQueries == sharedTestQueries) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static void sampleDatabases(final Histogram target, final Database sharedTestQueries, final Database writeTestQueries,
+                                        final Function<Database, Histogram> intervalHistogram) {
+        target.reset();
+        for (final Database database : new Database[]{sharedTestQueries, writeTestQueries}) {
+            final Histogram interval = intervalHistogram.apply(database);
+            if (interval != null) {
+                target.add(interval);
+            }
+            if (writeTestQueries == sharedTestQueries) {
+                break;
+            }
         }
     }
 }
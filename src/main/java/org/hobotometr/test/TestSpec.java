@@ -2,8 +2,21 @@ package org.hobotometr.test;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import org.hobotometr.db.CacheWrites;
 import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.KeyDistribution;
+import org.hobotometr.db.PoolOptions;
+import org.hobotometr.db.PoolProvider;
+import org.hobotometr.db.RedisMode;
+import org.hobotometr.db.ReplicaBalancing;
+import org.hobotometr.db.ScanQuery;
+import org.hobotometr.db.StatementCaching;
 
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -16,15 +29,36 @@ public class TestSpec {
     private int writePoolSize = 0;
     private int readLiteCpuThreads = 0;
     private int readHeavyCpuThreads = 0;
+    private int readScanThreads = 0;
     private int writeInsertThreads = 0;
     private int writeUpdateTinyThreads = 0;
     private int writeUpdateWideThreads = 0;
+    private int mixClients = 0;
+    private ImmutableMap<Workload, Double> mix = ImmutableMap.of();
     @SuppressWarnings("FieldMayBeFinal")
     private int readRange = EnvSpec.readRangeDefault;
-    @SuppressWarnings("FieldMayBeFinal")
-    private int readSize = 1000;
+    private int readSize = readSizeDefault;
+    private ScanQuery scanQuery = ScanQuery.stream;
+    private int fetchSize = 100;
     @SuppressWarnings("FieldMayBeFinal")
     private int updateRange = EnvSpec.updateRangeDefault;
+    private int batchSize = 1;
+    private int targetRate = 0;
+    private int targetRateTo = 0;
+    private Arrival arrival = Arrival.constant;
+    private LoadEngine loadEngine = LoadEngine.platform;
+    private PoolProvider poolProvider = PoolProvider.hikari;
+    private StatementCaching statementCaching = StatementCaching.none;
+    private KeyDistribution keyDistribution = KeyDistribution.uniform;
+    private RedisMode redisMode = RedisMode.pooled;
+    private int pipelineDepth = 1;
+    private int asyncInFlight = 0;
+    private ReplicaBalancing replicaBalancing = ReplicaBalancing.none;
+    private int cacheSize = 0;
+    private int cacheTtlSeconds = 0;
+    private CacheWrites cacheWrites = CacheWrites.invalidate;
+
+    private static final int readSizeDefault = 1000;
 
     private TestSpec() {
         //note [DM] use Builder instead.
@@ -50,6 +84,10 @@ public class TestSpec {
         return readHeavyCpuThreads;
     }
 
+    public int getReadScanThreads() {
+        return readScanThreads;
+    }
+
     public int getWriteInsertThreads() {
         return writeInsertThreads;
     }
@@ -62,6 +100,25 @@ public class TestSpec {
         return writeUpdateWideThreads;
     }
 
+    /**
+     * @return clients picking operation of {@link #getMix()} by weight on each step (besides clients of single operation).
+     */
+    public int getMixClients() {
+        return mixClients;
+    }
+
+    public ImmutableMap<Workload, Double> getMix() {
+        return mix;
+    }
+
+    public int getReadThreads() {
+        return readLiteCpuThreads + readHeavyCpuThreads + readScanThreads;
+    }
+
+    public int getWriteThreads() {
+        return writeInsertThreads + writeUpdateTinyThreads + writeUpdateWideThreads;
+    }
+
     public int getReadRange() {
         return readRange;
     }
@@ -70,13 +127,194 @@ public class TestSpec {
         return readSize;
     }
 
+    public ScanQuery getScanQuery() {
+        return scanQuery;
+    }
+
+    /**
+     * @return rows per round trip of scans (JDBC fetch size, Mongo batch size, keyset page size) or N of top N scan.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
     public int getUpdateRange() {
         return updateRange;
     }
 
+    /**
+     * @return rows per insert and tiny update operation, 1 means no batching.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return total target rate (ops/sec) of open loop test, or 0 for closed loop test.
+     */
+    public int getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return target rate at the end of tracking, equals to {@link #getTargetRate()} when there is no ramp.
+     */
+    public int getTargetRateTo() {
+        return targetRateTo;
+    }
+
+    public Arrival getArrival() {
+        return arrival;
+    }
+
+    public LoadEngine getLoadEngine() {
+        return loadEngine;
+    }
+
+    public PoolProvider getPoolProvider() {
+        return poolProvider;
+    }
+
+    public StatementCaching getStatementCaching() {
+        return statementCaching;
+    }
+
+    public KeyDistribution getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    public RedisMode getRedisMode() {
+        return redisMode;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * @return operations kept in flight by each client over async driver, 0 means blocking client threads.
+     */
+    public int getAsyncInFlight() {
+        return asyncInFlight;
+    }
+
+    /**
+     * @return how reads are spread over replicas of {@link EnvSpec#replicasFor}, {@link ReplicaBalancing#none} keeps all on primary.
+     */
+    public ReplicaBalancing getReplicaBalancing() {
+        return replicaBalancing;
+    }
+
+    /**
+     * @return rows kept by client side read-through cache in front of pools, 0 means no cache.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return time to live of cached rows, 0 means rows are only evicted by size.
+     */
+    public int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public CacheWrites getCacheWrites() {
+        return cacheWrites;
+    }
+
+    public boolean isCached() {
+        return cacheSize > 0;
+    }
+
+    public boolean isRouted() {
+        return replicaBalancing != ReplicaBalancing.none;
+    }
+
+    public boolean isAsync() {
+        return asyncInFlight > 0;
+    }
+
+    public PoolOptions getPoolOptions() {
+        return new PoolOptions.Builder()
+                .setPoolProvider(poolProvider)
+                .setStatementCaching(statementCaching)
+                .setRedisMode(redisMode)
+                .setPipelineDepth(pipelineDepth)
+                .setAsyncInFlight(asyncInFlight)
+                .build();
+    }
+
+    public boolean isOpenLoop() {
+        return targetRate > 0;
+    }
+
     @Override
     public String toString() {
-        return Joiner.on(",").join(ImmutableList.of(
+        final ImmutableList.Builder<String> optional = ImmutableList.builder();
+        if (isOpenLoop()) {
+            optional.add(String.format("rate=%06d", targetRate));
+            if (targetRateTo != targetRate) {
+                optional.add(String.format("rate_to=%06d", targetRateTo));
+            }
+            if (arrival != Arrival.constant) {
+                optional.add("arrival=" + arrival);
+            }
+        }
+        if (mixClients > 0) {
+            optional.add(String.format("mix_clients=%04d", mixClients));
+            final ImmutableList.Builder<String> weights = ImmutableList.builder();
+            for (final Map.Entry<Workload, Double> operation : mix.entrySet()) {
+                final double weight = operation.getValue();
+                weights.add(operation.getKey() + (weight == Math.rint(weight) ? String.valueOf((long) weight) : String.valueOf(weight)));
+            }
+            optional.add("mix=" + Joiner.on('+').join(weights.build()));
+        }
+        if (readScanThreads > 0 || mix.containsKey(Workload.scan)) {
+            optional.add(String.format("r_scan=%04d", readScanThreads));
+            optional.add("scan=" + scanQuery);
+            optional.add(String.format("fetch=%05d", fetchSize));
+        }
+        if (readSize != readSizeDefault) {
+            optional.add(String.format("read_size=%06d", readSize));
+        }
+        if (batchSize > 1) {
+            optional.add(String.format("batch=%04d", batchSize));
+        }
+        if (loadEngine != LoadEngine.platform) {
+            optional.add("engine=" + loadEngine);
+        }
+        if (poolProvider != PoolProvider.hikari) {
+            optional.add("pool=" + poolProvider);
+        }
+        if (statementCaching != StatementCaching.none) {
+            optional.add("stmt=" + statementCaching);
+        }
+        if (redisMode != RedisMode.pooled) {
+            optional.add("conn=" + redisMode);
+        }
+        if (pipelineDepth > 1) {
+            optional.add(String.format("pipe=%03d", pipelineDepth));
+        }
+        if (asyncInFlight > 0) {
+            optional.add(String.format("async=%03d", asyncInFlight));
+        }
+        if (isRouted()) {
+            optional.add("balance=" + replicaBalancing);
+        }
+        if (isCached()) {
+            optional.add(String.format("cache=%07d", cacheSize));
+            if (cacheTtlSeconds > 0) {
+                optional.add(String.format("cache_ttl=%04d", cacheTtlSeconds));
+            }
+            if (cacheWrites != CacheWrites.invalidate) {
+                optional.add("cache_writes=" + cacheWrites);
+            }
+        }
+        if (keyDistribution != KeyDistribution.uniform) {
+            optional.add("keys=" + keyDistribution);
+        }
+        return Joiner.on(",").join(Iterables.concat(ImmutableList.of(
                 String.format("sp=%04d", sharedPoolSize),
                 String.format("wp=%04d", writePoolSize),
                 String.format("r_lite=%04d", readLiteCpuThreads),
@@ -84,7 +322,7 @@ public class TestSpec {
                 String.format("w_ins=%04d", writeInsertThreads),
                 String.format("w_up_tiny=%04d", writeUpdateTinyThreads),
                 String.format("w_up_wide=%04d", writeUpdateWideThreads)
-        ));
+        ), optional.build()));
     }
 
     public static class Builder {
@@ -115,6 +353,40 @@ public class TestSpec {
             return this;
         }
 
+        public Builder setReadScanThreads(final int readScanThreads) {
+            delegate.readScanThreads = readScanThreads;
+            return this;
+        }
+
+        /**
+         * @param readSize ids per range of heavy reads and scans.
+         */
+        public Builder setReadSize(final int readSize) {
+            checkArgument(readSize >= 1 && readSize < delegate.readRange, "Invalid read size: %s", readSize);
+            delegate.readSize = readSize;
+            return this;
+        }
+
+        public Builder setScan(final ScanQuery scanQuery, final int fetchSize) {
+            checkArgument(fetchSize >= 1, "Invalid fetch size: %s", fetchSize);
+            delegate.scanQuery = checkNotNull(scanQuery);
+            delegate.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * @param mix operations by weight, each of clients picks one of them by weight on each step.
+         */
+        public Builder setMix(final int mixClients, final Map<Workload, Double> mix) {
+            checkArgument(mixClients >= 0 && (mixClients == 0 || !mix.isEmpty()), "Invalid mix clients: %s", mixClients);
+            for (final double weight : mix.values()) {
+                checkArgument(weight > 0, "Invalid mix weight: %s", weight);
+            }
+            delegate.mixClients = mixClients;
+            delegate.mix = ImmutableMap.copyOf(mix);
+            return this;
+        }
+
         public Builder setWriteInsertThreads(final int writeInsertThreads) {
             delegate.writeInsertThreads = writeInsertThreads;
             return this;
@@ -130,8 +402,99 @@ public class TestSpec {
             return this;
         }
 
+        /**
+         * Switch test to open loop mode with constant target rate (ops/sec, shared by all load threads).
+         */
+        public Builder setTargetRate(final int targetRate) {
+            return setTargetRateRamp(targetRate, targetRate);
+        }
+
+        /**
+         * Switch test to open loop mode with target rate linearly growing during tracking, e.g. 1k..50k ops/sec.
+         */
+        public Builder setTargetRateRamp(final int targetRateFrom, final int targetRateTo) {
+            checkArgument(targetRateTo >= 0 && (targetRateFrom > 0 || targetRateTo == 0), "Invalid target rate: %s..%s", targetRateFrom, targetRateTo);
+            delegate.targetRate = targetRateFrom;
+            delegate.targetRateTo = targetRateTo;
+            return this;
+        }
+
+        public Builder setArrival(final Arrival arrival) {
+            delegate.arrival = checkNotNull(arrival);
+            return this;
+        }
+
+        public Builder setBatchSize(final int batchSize) {
+            checkArgument(batchSize >= 1, "Invalid batch size: %s", batchSize);
+            delegate.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder setPoolProvider(final PoolProvider poolProvider) {
+            delegate.poolProvider = checkNotNull(poolProvider);
+            return this;
+        }
+
+        public Builder setStatementCaching(final StatementCaching statementCaching) {
+            delegate.statementCaching = checkNotNull(statementCaching);
+            return this;
+        }
+
+        public Builder setRedisMode(final RedisMode redisMode) {
+            delegate.redisMode = checkNotNull(redisMode);
+            return this;
+        }
+
+        public Builder setPipelineDepth(final int pipelineDepth) {
+            checkArgument(pipelineDepth >= 1, "Invalid pipeline depth: %s", pipelineDepth);
+            delegate.pipelineDepth = pipelineDepth;
+            return this;
+        }
+
+        public Builder setAsyncInFlight(final int asyncInFlight) {
+            checkArgument(asyncInFlight >= 0, "Invalid in flight limit: %s", asyncInFlight);
+            delegate.asyncInFlight = asyncInFlight;
+            return this;
+        }
+
+        public Builder setReplicaBalancing(final ReplicaBalancing replicaBalancing) {
+            delegate.replicaBalancing = checkNotNull(replicaBalancing);
+            return this;
+        }
+
+        /**
+         * Put read-through cache of given amount of rows in front of pools (shared by read and write pools).
+         */
+        public Builder setCache(final int cacheSize, final int cacheTtlSeconds, final CacheWrites cacheWrites) {
+            checkArgument(cacheSize >= 0 && cacheTtlSeconds >= 0, "Invalid cache size/ttl: %s/%s", cacheSize, cacheTtlSeconds);
+            delegate.cacheSize = cacheSize;
+            delegate.cacheTtlSeconds = cacheTtlSeconds;
+            delegate.cacheWrites = checkNotNull(cacheWrites);
+            return this;
+        }
+
+        public Builder setKeyDistribution(final KeyDistribution keyDistribution) {
+            delegate.keyDistribution = checkNotNull(keyDistribution);
+            return this;
+        }
+
+        public Builder setLoadEngine(final LoadEngine loadEngine) {
+            delegate.loadEngine = checkNotNull(loadEngine);
+            return this;
+        }
+
         public TestSpec build() {
             final TestSpec result = checkNotNull(this.delegate, "Builder closed");
+            checkArgument(!result.isAsync() || (!result.isOpenLoop() && result.batchSize == 1),
+                    "Async clients run closed loop single row operations only");
+            checkArgument(!result.isAsync() || result.databaseType.hasAsyncDriver(), "No async driver for %s", result.databaseType);
+            checkArgument(result.databaseType.hasRangeScan() || (result.readScanThreads == 0 && !result.mix.containsKey(Workload.scan)),
+                    "No range scans in %s", result.databaseType);
+            checkArgument(!result.isAsync() || result.readScanThreads == 0, "Async clients don't run scans");
+            checkArgument(!result.isAsync() || result.mixClients == 0, "Async clients don't run mixes");
+            checkArgument(!result.isAsync() || !result.isRouted(), "Async clients are not routed to replicas");
+            checkArgument(!result.isCached() || (!result.isAsync() && result.batchSize == 1 && result.pipelineDepth == 1),
+                    "Cache serves blocking single row operations only");
             this.delegate = null; //close builder.
             return result;
         }
@@ -1,7 +1,20 @@
 package org.hobotometr.test;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.KeyDistribution;
+import org.hobotometr.db.PoolOptions;
+import org.hobotometr.db.PoolProvider;
+import org.hobotometr.db.RedisMode;
+import org.hobotometr.db.ReplicaBalancing;
+import org.hobotometr.db.ScanQuery;
+import org.hobotometr.db.StatementCaching;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * @author dmitry.mamonov
@@ -37,103 +50,336 @@ public class TestSuiteRunner {
             }
         }
 
-        if (!EnvSpec.simpleOnly) {
-            for (final int maxPoolSize : sizes) { //test select tiny, insert:
-                if (!insertOnly) {
-                    TestRunner.runTest(new TestSpec.Builder()
-                                    .setDatabaseType(databaseType)
-                                    .setSharedPoolSize(maxPoolSize)
-                                    .setReadLiteCpuThreads(Math.max(1, maxPoolSize / 2))
-                                    .setWriteInsertThreads(Math.max(1, maxPoolSize / 2))
-                                    .build()
-                    );
-                }
-            }
+        if (!EnvSpec.simpleOnly && !insertOnly) { //composite tests, see scenarios/mixed.json:
+            runScenarioTestSuite(databaseType, sizes, "scenarios/mixed.json");
+        }
+    }
 
-            for (final int maxPoolSize : sizes) { //test select tiny, update tiny:
-                if (!insertOnly) {
-                    TestRunner.runTest(new TestSpec.Builder()
-                                    .setDatabaseType(databaseType)
-                                    .setSharedPoolSize(maxPoolSize)
-                                    .setReadLiteCpuThreads(Math.max(1, maxPoolSize / 2))
-                                    .setWriteUpdateTinyThreads(Math.max(1, maxPoolSize / 2))
-                                    .build()
-                    );
-                }
-            }
+    /**
+     * Run mixed workloads of {@link EnvSpec#scenario} file, see {@link Scenario}.
+     */
+    public static void runScenarioTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        runScenarioTestSuite(databaseType, ImmutableList.of(maxPoolSize), EnvSpec.scenario);
+    }
 
-            for (final int maxPoolSize : sizes) { //test select heavy, update wide:
-                if (!insertOnly) {
-                    TestRunner.runTest(new TestSpec.Builder()
-                                    .setDatabaseType(databaseType)
-                                    .setSharedPoolSize(maxPoolSize)
-                                    .setReadHeavyCpuThreads(Math.max(1, maxPoolSize / 2))
-                                    .setWriteUpdateWideThreads(Math.max(1, maxPoolSize / 2))
-                                    .build()
-                    );
+    private static void runScenarioTestSuite(final DatabaseType databaseType, final ImmutableList<Integer> sizes, final String scenarioFile) {
+        final List<Scenario> scenarios;
+        try {
+            scenarios = Scenario.load(scenarioFile);
+        } catch (final IOException oops) {
+            throw new RuntimeException("Failed to load scenario: " + scenarioFile, oops);
+        }
+        for (final Scenario scenario : scenarios) {
+            for (final int maxPoolSize : sizes) {
+                for (final TestSpec spec : scenario.specs(databaseType, maxPoolSize)) {
+                    System.out.println("Scenario " + scenario.getName() + ": " + spec);
+                    TestRunner.runTest(spec);
                 }
             }
+        }
+    }
 
-            for (final int maxPoolSize : sizes) { //test insert, update, select:
-                if (!insertOnly) {
-                    final int writePoolSize = Math.max(1, maxPoolSize / 2);
-                    TestRunner.runTest(new TestSpec.Builder()
-                                    .setDatabaseType(databaseType)
-                                    .setSharedPoolSize(maxPoolSize)
-                                    .setWritePoolSize(writePoolSize)
-                                    .setReadLiteCpuThreads(maxPoolSize)
-                                    .setWriteInsertThreads(Math.max(1, writePoolSize / 3))
-                                    .setWriteUpdateTinyThreads(Math.max(1, writePoolSize / 3))
-                                    .setWriteUpdateTinyThreads(Math.max(1, writePoolSize / 3))
-                                    .build()
-                    );
-                }
-            }
+    public static void runBatchTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        for (final String batchSize : Splitter.on(',').trimResults().split(EnvSpec.batchSizes)) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setWriteInsertThreads(clientsFor(maxPoolSize))
+                            .setBatchSize(Integer.parseInt(batchSize))
+                            .setKeyDistribution(EnvSpec.keys)
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
+        }
+        for (final String batchSize : Splitter.on(',').trimResults().split(EnvSpec.batchSizes)) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setWriteUpdateTinyThreads(clientsFor(maxPoolSize))
+                            .setBatchSize(Integer.parseInt(batchSize))
+                            .setKeyDistribution(EnvSpec.keys)
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
         }
     }
 
-    private static void runSelectHeavyTest(final DatabaseType databaseType, final int maxPoolSize) {
+    /**
+     * Compare statement preparation modes on hot path, each mode gets fresh pool (so fresh statement caches).
+     */
+    public static void runStatementCachingTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (databaseType == DatabaseType.mongo || databaseType == DatabaseType.redis) {
+            return; //note [DM] no SQL statements to prepare.
+        }
+        for (final StatementCaching statementCaching : StatementCaching.values()) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setReadLiteCpuThreads(clientsFor(maxPoolSize))
+                            .setStatementCaching(statementCaching)
+                            .setKeyDistribution(EnvSpec.keys)
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
+        }
+        for (final StatementCaching statementCaching : StatementCaching.values()) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setWriteUpdateTinyThreads(clientsFor(maxPoolSize))
+                            .setStatementCaching(statementCaching)
+                            .setKeyDistribution(EnvSpec.keys)
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
+        }
+    }
+
+    /**
+     * Compare ids access distributions (buffer pool hit rate, row lock contention).
+     */
+    public static void runKeyDistributionTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        for (final String keys : Splitter.on(',').trimResults().split(EnvSpec.keysList)) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setReadLiteCpuThreads(clientsFor(maxPoolSize))
+                            .setKeyDistribution(KeyDistribution.parse(keys))
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
+        }
+        for (final String keys : Splitter.on(',').trimResults().split(EnvSpec.keysList)) {
+            TestRunner.runTest(new TestSpec.Builder()
+                            .setDatabaseType(databaseType)
+                            .setSharedPoolSize(maxPoolSize)
+                            .setWriteUpdateTinyThreads(clientsFor(maxPoolSize))
+                            .setKeyDistribution(KeyDistribution.parse(keys))
+                            .setLoadEngine(EnvSpec.engine)
+                            .build()
+            );
+        }
+    }
+
+    public static void runRateRampTest(final DatabaseType databaseType, final int maxPoolSize) {
         TestRunner.runTest(new TestSpec.Builder()
                         .setDatabaseType(databaseType)
                         .setSharedPoolSize(maxPoolSize)
-                        .setReadHeavyCpuThreads(maxPoolSize)
+                        .setReadLiteCpuThreads(maxPoolSize * EnvSpec.rateClients)
+                        .setKeyDistribution(EnvSpec.keys)
+                        .setLoadEngine(EnvSpec.engine)
+                        .setTargetRateRamp(EnvSpec.rateFrom, EnvSpec.rateTo)
+                        .setArrival(EnvSpec.rateArrival)
                         .build()
         );
     }
 
+    private static void runSelectHeavyTest(final DatabaseType databaseType, final int maxPoolSize) {
+        TestRunner.runTest(Workload.selectHeavy.spec(databaseType, maxPoolSize));
+    }
+
     public static void runSelectLiteTest(final DatabaseType databaseType, final int maxPoolSize) {
-        TestRunner.runTest(new TestSpec.Builder()
-                        .setDatabaseType(databaseType)
-                        .setSharedPoolSize(maxPoolSize)
-                        .setReadLiteCpuThreads(maxPoolSize)
-                        .build()
-        );
+        TestRunner.runTest(Workload.selectLite.spec(databaseType, maxPoolSize));
     }
 
     private static void runUpdateWideTest(final DatabaseType databaseType, final int maxPoolSize) {
-        TestRunner.runTest(new TestSpec.Builder()
-                        .setDatabaseType(databaseType)
-                        .setSharedPoolSize(maxPoolSize)
-                        .setWriteUpdateWideThreads(maxPoolSize)
-                        .build()
-        );
+        TestRunner.runTest(Workload.updateWide.spec(databaseType, maxPoolSize));
     }
 
     private static void runUpdateTinyTest(final DatabaseType databaseType, final int maxPoolSize) {
-        TestRunner.runTest(new TestSpec.Builder()
-                        .setDatabaseType(databaseType)
-                        .setSharedPoolSize(maxPoolSize)
-                        .setWriteUpdateTinyThreads(maxPoolSize)
+        TestRunner.runTest(Workload.updateTiny.spec(databaseType, maxPoolSize));
+    }
+
+    /**
+     * Compare connection pool implementations (and no pool at all) on same driver and pool size.
+     */
+    public static void runPoolProviderTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (databaseType == DatabaseType.mongo || databaseType == DatabaseType.redis) {
+            return; //note [DM] drivers manage own connections.
+        }
+        for (final Workload workload : new Workload[]{Workload.selectLite, Workload.updateTiny}) {
+            for (final String poolProvider : Splitter.on(',').trimResults().split(EnvSpec.pools)) {
+                TestRunner.runTest(workload.builder(databaseType, maxPoolSize)
+                                .setPoolProvider(PoolProvider.valueOf(poolProvider))
+                                .build()
+                );
+            }
+        }
+    }
+
+    /**
+     * Compare blocking thread per query clients against async clients pipelining over the same amount of connections.
+     */
+    public static void runAsyncTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (!databaseType.hasAsyncDriver()) {
+            return;
+        }
+        for (final Workload workload : new Workload[]{Workload.selectLite, Workload.updateTiny}) {
+            TestRunner.runTest(workload.spec(databaseType, maxPoolSize));
+            for (final String inFlight : Splitter.on(',').trimResults().split(EnvSpec.asyncInFlight)) {
+                TestRunner.runTest(workload.builder(databaseType, maxPoolSize)
+                                .setAsyncInFlight(Integer.parseInt(inFlight))
+                                .build()
+                );
+            }
+        }
+    }
+
+    /**
+     * Compare read balancing over replicas of {@link EnvSpec#replicasFor}: reads only, then reads with tiny updates
+     * on primary (replication lag shows up as stale reads).
+     */
+    public static void runReplicaTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (EnvSpec.replicasFor(databaseType).isEmpty()) {
+            System.out.println("No replicas of " + databaseType + ", see -Dreplicas");
+            return;
+        }
+        for (final boolean withWrites : new boolean[]{false, true}) {
+            for (final String balancing : Splitter.on(',').trimResults().split(EnvSpec.balancings)) {
+                final TestSpec.Builder builder = Workload.selectLite.builder(databaseType, maxPoolSize)
+                        .setReplicaBalancing(ReplicaBalancing.valueOf(balancing));
+                if (withWrites) {
+                    builder.setWriteUpdateTinyThreads(Math.max(1, clientsFor(maxPoolSize) / 4));
+                }
+                TestRunner.runTest(builder.build());
+            }
+        }
+    }
+
+    /**
+     * Compare uncached baseline against client side read-through cache of {@link EnvSpec#cacheSizes} rows under
+     * same key distribution: reads only, then reads with tiny updates (which invalidate or overwrite cached rows).
+     */
+    public static void runCacheTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        for (final boolean withWrites : new boolean[]{false, true}) {
+            for (final int cacheSize : Iterables.concat(ImmutableList.of(0),
+                    Iterables.transform(Splitter.on(',').trimResults().split(EnvSpec.cacheSizes), Integer::valueOf))) {
+                final TestSpec.Builder builder = Workload.selectLite.builder(databaseType, maxPoolSize)
+                        .setCache(cacheSize, EnvSpec.cacheTtlSeconds, EnvSpec.cacheWrites);
+                if (withWrites) {
+                    builder.setWriteUpdateTinyThreads(Math.max(1, clientsFor(maxPoolSize) / 4));
+                }
+                TestRunner.runTest(builder.build());
+            }
+        }
+    }
+
+    /**
+     * Compare scans of {@link EnvSpec#scanSize} ids range by shape and fetch size, against server side avg(val)
+     * of the same range (heavy read), so cost of shipping rows to client is visible in rows/sec and bytes/sec.
+     */
+    public static void runScanTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (!databaseType.hasRangeScan()) {
+            return;
+        }
+        TestRunner.runTest(Workload.selectHeavy.builder(databaseType, maxPoolSize)
+                        .setReadSize(EnvSpec.scanSize)
                         .build()
         );
+        for (final String scanQuery : Splitter.on(',').trimResults().split(EnvSpec.scanQueries)) {
+            if (ScanQuery.valueOf(scanQuery) == ScanQuery.stream && !databaseType.hasStreamFetchSize()) {
+                TestRunner.runTest(Workload.scan.builder(databaseType, maxPoolSize) //note [DM] rows are streamed one by one, fetch=1.
+                                .setReadSize(EnvSpec.scanSize)
+                                .setScan(ScanQuery.stream, 1)
+                                .build()
+                );
+                continue;
+            }
+            for (final String fetchSize : Splitter.on(',').trimResults().split(EnvSpec.scanFetchSizes)) {
+                TestRunner.runTest(Workload.scan.builder(databaseType, maxPoolSize)
+                                .setReadSize(EnvSpec.scanSize)
+                                .setScan(ScanQuery.valueOf(scanQuery), Integer.parseInt(fetchSize))
+                                .build()
+                );
+            }
+        }
+    }
+
+    /**
+     * Compare pooled request/response, pipelined and multiplexed Redis connections.
+     */
+    public static void runRedisTestSuite(final DatabaseType databaseType, final int maxPoolSize) {
+        if (databaseType != DatabaseType.redis) {
+            return;
+        }
+        for (final Workload workload : new Workload[]{Workload.selectLite, Workload.updateTiny}) {
+            for (final RedisMode redisMode : RedisMode.values()) {
+                for (final String pipelineDepth : Splitter.on(',').trimResults().split(EnvSpec.redisPipelineDepths)) {
+                    TestRunner.runTest(workload.builder(databaseType, maxPoolSize)
+                                    .setRedisMode(redisMode)
+                                    .setPipelineDepth(Integer.parseInt(pipelineDepth))
+                                    .build()
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Find pool size with max throughput within p99 limit for each of {@link EnvSpec#searchWorkloads}.
+     */
+    public static void runPoolSizeSearch(final DatabaseType databaseType, final int maxPoolSize) {
+        for (final String workload : Splitter.on(',').trimResults().split(EnvSpec.searchWorkloads)) {
+            try {
+                new PoolSizeSearch(databaseType, Workload.valueOf(workload), maxPoolSize).search();
+            } catch (final IOException | RuntimeException oops) {
+                oops.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Compare clients starting at once against cold and against full pool, see {@link ConnectionStorm}.
+     */
+    public static void runConnectionStormTest(final DatabaseType databaseType, final int maxPoolSize) {
+        try {
+            new ConnectionStorm(databaseType, maxPoolSize).run();
+        } catch (final IOException | InterruptedException | RuntimeException oops) {
+            oops.printStackTrace();
+        }
+    }
+
+    /**
+     * Many pools of given size start against one host at once, see {@link PoolStartup}.
+     */
+    public static void runPoolStartupTest(final DatabaseType databaseType, final int maxPoolSize) {
+        final Iterable<String> poolProviders = databaseType == DatabaseType.mongo || databaseType == DatabaseType.redis
+                ? ImmutableList.of(PoolProvider.hikari.name()) //note [DM] drivers manage own connections.
+                : Splitter.on(',').trimResults().split(EnvSpec.startupPoolProviders);
+        for (final String poolProvider : poolProviders) {
+            try {
+                new PoolStartup(databaseType, maxPoolSize, new PoolOptions.Builder()
+                        .setPoolProvider(PoolProvider.valueOf(poolProvider))
+                        .build()).run();
+            } catch (final IOException | InterruptedException | RuntimeException oops) {
+                oops.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Export {@link ResultStore} runs as {@link EnvSpec#exportFormat}.
+     */
+    public static void exportResults() {
+        try {
+            final ResultStore store = ResultStore.shared();
+            if ("json".equals(EnvSpec.exportFormat)) {
+                final File jsonFile = new File("data/results.json");
+                store.exportJson(jsonFile);
+                System.out.println("Exported " + store.keys().size() + " runs to " + jsonFile);
+            } else {
+                System.out.println("Exported " + store.exportCsv(new File("data")) + " runs to csv files");
+            }
+        } catch (final IOException oops) {
+            oops.printStackTrace();
+        }
+    }
+
+    static int clientsFor(final int maxPoolSize) {
+        return EnvSpec.clients > 0 ? EnvSpec.clients : maxPoolSize;
     }
 
     private static void runInsertTest(final DatabaseType databaseType, final int maxPoolSize) {
-        TestRunner.runTest(new TestSpec.Builder()
-                        .setDatabaseType(databaseType)
-                        .setSharedPoolSize(maxPoolSize)
-                        .setWriteInsertThreads(maxPoolSize)
-                        .build()
-        );
+        TestRunner.runTest(Workload.insert.spec(databaseType, maxPoolSize));
     }
 }
@@ -0,0 +1,88 @@
+package org.hobotometr.test;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import org.hobotometr.db.Database;
+import org.hobotometr.db.DatabaseType;
+import org.hobotometr.db.PoolOptions;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection pools kept open between consecutive tests of same database, so each test does not pay
+ * connection handshakes again. Pools are keyed by database, host, size and options: pool of previous test is reused
+ * when next test asks for same one, otherwise it is closed once next test of that database/host is done
+ * (pool implementations here can't change size of a running pool, so resize is close and open again).
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 11:55 PM
+ */
+public class WarmPools {
+    private static final ListMultimap<String, Database> idle = ArrayListMultimap.create();
+
+    /**
+     * @return idle pool of previous test or new one.
+     */
+    static Database acquire(final DatabaseType databaseType, final String host, final int poolSize, final PoolOptions options) {
+        if (EnvSpec.poolReuse) {
+            synchronized (idle) {
+                final List<Database> matching = idle.get(key(databaseType, host, poolSize, options));
+                if (!matching.isEmpty()) {
+                    return matching.remove(0);
+                }
+            }
+        }
+        return databaseType.createConnectionPool(host, poolSize, options);
+    }
+
+    /**
+     * Pools of finished test become idle, idle pools it did not reuse are closed.
+     */
+    static void release(final DatabaseType databaseType, final String host, final int poolSize, final PoolOptions options,
+                        final Database database) {
+        if (!EnvSpec.poolReuse) {
+            database.close();
+            return;
+        }
+        synchronized (idle) {
+            idle.put(key(databaseType, host, poolSize, options), database);
+        }
+    }
+
+    /**
+     * Close idle pools of given database/host except ones of given sizes and options.
+     */
+    static void closeOthers(final DatabaseType databaseType, final String host, final PoolOptions options, final int... keepPoolSizes) {
+        final ImmutableList.Builder<String> keep = ImmutableList.builder();
+        for (final int poolSize : keepPoolSizes) {
+            keep.add(key(databaseType, host, poolSize, options));
+        }
+        closeIdle(databaseType + "/" + host + "/", keep.build());
+    }
+
+    /**
+     * Close all idle pools, e.g. after all series are done.
+     */
+    public static void closeAll() {
+        closeIdle("", ImmutableList.<String>of());
+    }
+
+    private static void closeIdle(final String prefix, final List<String> keep) {
+        synchronized (idle) {
+            for (final Iterator<Map.Entry<String, Database>> entries = idle.entries().iterator(); entries.hasNext(); ) {
+                final Map.Entry<String, Database> entry = entries.next();
+                if (entry.getKey().startsWith(prefix) && !keep.contains(entry.getKey())) {
+                    entry.getValue().close();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private static String key(final DatabaseType databaseType, final String host, final int poolSize, final PoolOptions options) {
+        return databaseType + "/" + host + "/" + poolSize + "/" + options;
+    }
+}
@@ -0,0 +1,115 @@
+package org.hobotometr.test;
+
+/**
+ * Adaptive test schedule, replaces fixed warm up sleeps and fixed amount of samples:
+ * <ul>
+ * <li>measurement starts once coefficient of variation of throughput and p99 latency
+ * over a sliding window of one second samples stays under threshold;</li>
+ * <li>measurement stops early once confidence interval on mean throughput is tight enough.</li>
+ * </ul>
+ * Per second samples are autocorrelated, so confidence interval is optimistic, keep minimal tracking time reasonable.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 05:50 PM
+ */
+class WarmupController {
+    /**
+     * Two-sided 95% Student t quantiles for 1..30 degrees of freedom, normal quantile above.
+     */
+    private static final double[] t95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private final LoadStats readStats;
+    private final LoadStats writeStats;
+    private final double[] windowOps = new double[EnvSpec.warmupWindow];
+    private final double[] windowP99 = new double[EnvSpec.warmupWindow];
+    private int windowSamples = 0;
+
+    private long trackedSamples = 0;
+    private double trackedSum = 0;
+    private double trackedSumOfSquares = 0;
+
+    WarmupController(final LoadStats readStats, final LoadStats writeStats) {
+        this.readStats = readStats;
+        this.writeStats = writeStats;
+    }
+
+    /**
+     * Sample load each second until it is steady or max warm up time passed.
+     */
+    void awaitSteadyState(final int minSeconds, final int maxSeconds) throws InterruptedException {
+        final long startMillis = System.currentTimeMillis();
+        long secondStart = startMillis;
+        readStats.sample(startMillis, startMillis);
+        writeStats.sample(startMillis, startMillis);
+        for (int second = 1; second <= maxSeconds; second++) {
+            Thread.sleep(Math.max(0, startMillis + second * 1000L - System.currentTimeMillis()));
+            final long secondEnd = System.currentTimeMillis();
+            readStats.sample(secondStart, secondEnd);
+            writeStats.sample(secondStart, secondEnd);
+            secondStart = secondEnd;
+
+            final int slot = windowSamples++ % windowOps.length;
+            windowOps[slot] = readStats.getIntervalOps() + writeStats.getIntervalOps();
+            windowP99[slot] = Math.max(
+                    readStats.getIntervalLatency().getValueAtPercentile(99.0),
+                    writeStats.getIntervalLatency().getValueAtPercentile(99.0));
+            if (second >= minSeconds && windowSamples >= windowOps.length) {
+                final double opsCv = coefficientOfVariation(windowOps);
+                final double p99Cv = coefficientOfVariation(windowP99);
+                if (opsCv <= EnvSpec.warmupOpsCv && p99Cv <= EnvSpec.warmupLatencyCv) {
+                    System.out.printf("Steady state after %d sec (ops cv=%.3f, p99 cv=%.3f)\n", second, opsCv, p99Cv);
+                    return;
+                }
+            }
+        }
+        System.out.printf("No steady state after %d sec, measure anyway\n", maxSeconds);
+    }
+
+    /**
+     * Add throughput of one tracked second.
+     *
+     * @return true when confidence interval on mean throughput is tight enough to stop measuring.
+     */
+    boolean addTrackedSample(final long ops) {
+        trackedSamples++;
+        trackedSum += ops;
+        trackedSumOfSquares += (double) ops * ops;
+        if (trackedSamples < EnvSpec.trackingMinSeconds) {
+            return false;
+        }
+        final double mean = trackedSum / trackedSamples;
+        if (mean <= 0) {
+            return false;
+        }
+        final double variance = Math.max(0, (trackedSumOfSquares - trackedSum * mean) / (trackedSamples - 1));
+        final double halfWidth = tQuantile(trackedSamples - 1) * Math.sqrt(variance / trackedSamples);
+        if (halfWidth / mean <= EnvSpec.trackingCi) {
+            System.out.printf("Stop after %d sec: mean %.0f ops/sec +/- %.2f%% (95%% CI)\n", trackedSamples, mean, halfWidth / mean * 100);
+            return true;
+        }
+        return false;
+    }
+
+    private static double tQuantile(final long degreesOfFreedom) {
+        return degreesOfFreedom <= t95.length ? t95[(int) degreesOfFreedom - 1] : 1.960;
+    }
+
+    private static double coefficientOfVariation(final double[] values) {
+        double sum = 0;
+        for (final double value : values) {
+            sum += value;
+        }
+        final double mean = sum / values.length;
+        if (mean <= 0) {
+            return Double.MAX_VALUE;
+        }
+        double squares = 0;
+        for (final double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (values.length - 1)) / mean;
+    }
+}
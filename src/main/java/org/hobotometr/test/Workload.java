@@ -0,0 +1,66 @@
+package org.hobotometr.test;
+
+import org.hobotometr.db.DatabaseType;
+
+/**
+ * Simple (single operation) workloads, shared by suites and pool size search.
+ *
+ * @author dmitry.mamonov
+ *         Created: 2026-10-18 06:15 PM
+ */
+public enum Workload {
+    insert {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setWriteInsertThreads(clients);
+        }
+    },
+    updateTiny {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setWriteUpdateTinyThreads(clients);
+        }
+    },
+    updateWide {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setWriteUpdateWideThreads(clients);
+        }
+    },
+    selectLite {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setReadLiteCpuThreads(clients);
+        }
+    },
+    selectHeavy {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setReadHeavyCpuThreads(clients);
+        }
+    },
+    /**
+     * Range scan of {@link TestSpec#getScanQuery()}, stream by default.
+     */
+    scan {
+        @Override
+        TestSpec.Builder withClients(final TestSpec.Builder builder, final int clients) {
+            return builder.setReadScanThreads(clients);
+        }
+    };
+
+    abstract TestSpec.Builder withClients(TestSpec.Builder builder, int clients);
+
+    public TestSpec spec(final DatabaseType databaseType, final int maxPoolSize) {
+        return builder(databaseType, maxPoolSize).build();
+    }
+
+    TestSpec.Builder builder(final DatabaseType databaseType, final int maxPoolSize) {
+        return withClients(new TestSpec.Builder()
+                        .setDatabaseType(databaseType)
+                        .setSharedPoolSize(maxPoolSize),
+                TestSuiteRunner.clientsFor(maxPoolSize))
+                .setKeyDistribution(EnvSpec.keys)
+                .setLoadEngine(EnvSpec.engine);
+    }
+}